@@ -0,0 +1,577 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import javalib.worldimages.*;
+import tester.Tester;
+
+//---------------------- TURN OBSERVER CLASSES --------------------------------
+
+// represents something that is told about every completed turn of a game
+interface ITurnObserver {
+  // the game has just entered the "match / no match" stage with its two picks
+  void onTurn(Concentration game);
+}
+
+// represents an observer that ignores every turn
+class NoTurnObserver implements ITurnObserver {
+  public void onTurn(Concentration game) {
+    // nothing to do
+  }
+}
+
+// represents a game's turns being streamed into a ring buffer for analysis
+// never blocks: if the buffer is full the turn is dropped and counted
+class TurnLog implements ITurnObserver {
+  long gameId;
+  TurnRingBuffer buffer;
+  long dropped; // turns lost because the buffer was full
+
+  TurnLog(long gameId, TurnRingBuffer buffer) {
+    this.gameId = gameId;
+    this.buffer = buffer;
+  }
+
+  // offer the game's current turn to the buffer
+  public void onTurn(Concentration game) {
+    boolean added = this.buffer.offer(this.gameId,
+        game.board.slotOf(game.pick1), game.board.slotOf(game.pick2),
+        game.pick1.rank, game.pick2.rank, game.match, System.currentTimeMillis());
+
+    if (!added) {
+      this.dropped++;
+    }
+  }
+}
+
+//---------------------- TURN COLUMNS CLASS -----------------------------------
+
+// represents a batch of turn events stored column by column
+class TurnColumns {
+  int size; // number of events in use
+  long[] gameIds;
+  int[] slots1; // slot of the first pick
+  int[] slots2; // slot of the second pick
+  int[] ranks1;
+  int[] ranks2;
+  boolean[] matches;
+  long[] times; // milliseconds since the epoch
+
+  TurnColumns(int capacity) {
+    this.size = 0;
+    this.gameIds = new long[capacity];
+    this.slots1 = new int[capacity];
+    this.slots2 = new int[capacity];
+    this.ranks1 = new int[capacity];
+    this.ranks2 = new int[capacity];
+    this.matches = new boolean[capacity];
+    this.times = new long[capacity];
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.size ... int
+   *  this.gameIds ... long[]
+   *  this.slots1 ... int[]
+   *  this.slots2 ... int[]
+   *  this.ranks1 ... int[]
+   *  this.ranks2 ... int[]
+   *  this.matches ... boolean[]
+   *  this.times ... long[]
+   * methods:
+   *  this.capacity ... int
+   *  this.set ... void
+   *  this.copy ... void
+   */
+
+  // the most events this batch can hold
+  int capacity() {
+    return this.gameIds.length;
+  }
+
+  // store an event at index i
+  void set(int i, long gameId, int slot1, int slot2, int rank1, int rank2,
+      boolean match, long time) {
+    this.gameIds[i] = gameId;
+    this.slots1[i] = slot1;
+    this.slots2[i] = slot2;
+    this.ranks1[i] = rank1;
+    this.ranks2[i] = rank2;
+    this.matches[i] = match;
+    this.times[i] = time;
+  }
+
+  // copy the event at index from of the other batch to index to of this one
+  void copy(TurnColumns other, int from, int to) {
+    this.set(to, other.gameIds[from], other.slots1[from], other.slots2[from],
+        other.ranks1[from], other.ranks2[from], other.matches[from], other.times[from]);
+  }
+}
+
+//---------------------- RING BUFFER CLASS ------------------------------------
+
+// represents a bounded lock-free queue of turn events for many producers (game threads)
+// and one consumer (the file writer). Each slot carries a sequence number telling
+// whether it is free for the producer of a position or full for the consumer of it
+class TurnRingBuffer {
+  TurnColumns slots;
+  int mask; // capacity - 1, capacity is a power of two
+  AtomicLongArray sequences;
+  AtomicLong tail; // next position to produce
+  long head; // next position to consume, only touched by the consumer
+
+  TurnRingBuffer(int capacity) {
+    if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+    }
+
+    this.slots = new TurnColumns(capacity);
+    this.mask = capacity - 1;
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      this.sequences.set(i, i);
+    }
+    this.tail = new AtomicLong(0);
+    this.head = 0;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.slots ... TurnColumns
+   *  this.mask ... int
+   *  this.sequences ... AtomicLongArray
+   *  this.tail ... AtomicLong
+   *  this.head ... long
+   * methods:
+   *  this.offer ... boolean
+   *  this.drain ... int
+   */
+
+  // add an event, returning false instead of waiting if the buffer is full
+  boolean offer(long gameId, int slot1, int slot2, int rank1, int rank2,
+      boolean match, long time) {
+    while (true) {
+      long pos = this.tail.get();
+      int i = (int) (pos & this.mask);
+      long diff = this.sequences.get(i) - pos;
+
+      if (diff == 0) {
+        // the slot is free for this position, claim it
+        if (this.tail.compareAndSet(pos, pos + 1)) {
+          this.slots.set(i, gameId, slot1, slot2, rank1, rank2, match, time);
+          this.sequences.lazySet(i, pos + 1);
+          return true;
+        }
+      }
+      else if (diff < 0) {
+        // the consumer has not freed this slot yet
+        return false;
+      }
+      // otherwise another producer claimed pos first, try again
+    }
+  }
+
+  // move up to into.capacity() events into the given batch, returning how many
+  // only the consumer may call this
+  int drain(TurnColumns into) {
+    int n = 0;
+
+    while (n < into.capacity()) {
+      int i = (int) (this.head & this.mask);
+      if (this.sequences.get(i) != this.head + 1) {
+        // not yet published
+        break;
+      }
+
+      into.copy(this.slots, i, n);
+      this.sequences.lazySet(i, this.head + this.mask + 1);
+      this.head++;
+      n++;
+    }
+
+    into.size = n;
+    return n;
+  }
+}
+
+//---------------------- FILE WRITER CLASS ------------------------------------
+
+// represents a background thread writing turn events to a columnar file
+// The file is a sequence of row groups, each laid out as:
+//   int rows, then rows longs of game id, rows ints of slot 1, of slot 2,
+//   of rank 1, of rank 2, rows bytes of match (0 or 1), rows longs of time
+class TurnFileWriter implements Runnable {
+  TurnRingBuffer buffer;
+  File file;
+  TurnColumns batch;
+  Thread thread;
+  volatile boolean closing;
+  IOException error; // the error that stopped the writer, if any
+  long written; // events written so far
+
+  TurnFileWriter(TurnRingBuffer buffer, File file, int batchSize) {
+    this.buffer = buffer;
+    this.file = file;
+    this.batch = new TurnColumns(batchSize);
+    this.closing = false;
+    this.written = 0;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.buffer ... TurnRingBuffer
+   *  this.file ... File
+   *  this.batch ... TurnColumns
+   *  this.thread ... Thread
+   *  this.closing ... boolean
+   *  this.error ... IOException
+   *  this.written ... long
+   * methods:
+   *  this.start ... void
+   *  this.close ... void
+   *  this.run ... void
+   *  this.writeBatch ... void
+   */
+
+  // start writing in the background
+  void start() {
+    this.thread = new Thread(this, "turn-writer");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  // write whatever is left in the buffer, then stop
+  void close() {
+    this.closing = true;
+    try {
+      this.thread.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // drain the buffer batch by batch until closed and empty
+  public void run() {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(this.file, true)))) {
+      while (true) {
+        // read closing before draining, so nothing offered before close() is missed
+        boolean last = this.closing;
+
+        if (this.buffer.drain(this.batch) > 0) {
+          this.writeBatch(out);
+        }
+        else if (last) {
+          break;
+        }
+        else {
+          out.flush();
+          LockSupport.parkNanos(1000000);
+        }
+      }
+    }
+    catch (IOException e) {
+      this.error = e;
+    }
+  }
+
+  // write the current batch as one row group
+  void writeBatch(DataOutputStream out) throws IOException {
+    TurnColumns b = this.batch;
+    out.writeInt(b.size);
+    for (int i = 0; i < b.size; i++) {
+      out.writeLong(b.gameIds[i]);
+    }
+    for (int i = 0; i < b.size; i++) {
+      out.writeInt(b.slots1[i]);
+    }
+    for (int i = 0; i < b.size; i++) {
+      out.writeInt(b.slots2[i]);
+    }
+    for (int i = 0; i < b.size; i++) {
+      out.writeInt(b.ranks1[i]);
+    }
+    for (int i = 0; i < b.size; i++) {
+      out.writeInt(b.ranks2[i]);
+    }
+    for (int i = 0; i < b.size; i++) {
+      out.writeByte(b.matches[i] ? 1 : 0);
+    }
+    for (int i = 0; i < b.size; i++) {
+      out.writeLong(b.times[i]);
+    }
+    this.written += b.size;
+  }
+}
+
+//---------------------- FILE READER CLASS ------------------------------------
+
+// represents reading back every row group of a file written by a TurnFileWriter
+class TurnFileReader {
+  File file;
+
+  TurnFileReader(File file) {
+    this.file = file;
+  }
+
+  // return every event in the file, in the order they were written
+  TurnColumns readAll() throws IOException {
+    TurnColumns all = new TurnColumns(16);
+
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(this.file)))) {
+      while (true) {
+        int rows;
+        try {
+          rows = in.readInt();
+        }
+        catch (EOFException e) {
+          return all;
+        }
+
+        TurnColumns group = new TurnColumns(rows);
+        for (int i = 0; i < rows; i++) {
+          group.gameIds[i] = in.readLong();
+        }
+        for (int i = 0; i < rows; i++) {
+          group.slots1[i] = in.readInt();
+        }
+        for (int i = 0; i < rows; i++) {
+          group.slots2[i] = in.readInt();
+        }
+        for (int i = 0; i < rows; i++) {
+          group.ranks1[i] = in.readInt();
+        }
+        for (int i = 0; i < rows; i++) {
+          group.ranks2[i] = in.readInt();
+        }
+        for (int i = 0; i < rows; i++) {
+          group.matches[i] = in.readByte() == 1;
+        }
+        for (int i = 0; i < rows; i++) {
+          group.times[i] = in.readLong();
+        }
+
+        all = this.append(all, group, rows);
+      }
+    }
+  }
+
+  // return a batch holding the events of all followed by the first rows of group
+  TurnColumns append(TurnColumns all, TurnColumns group, int rows) {
+    TurnColumns result = all;
+    if (all.size + rows > all.capacity()) {
+      result = new TurnColumns(Math.max(2 * all.capacity(), all.size + rows));
+      for (int i = 0; i < all.size; i++) {
+        result.copy(all, i, i);
+      }
+      result.size = all.size;
+    }
+
+    for (int i = 0; i < rows; i++) {
+      result.copy(group, i, result.size + i);
+    }
+    result.size += rows;
+    return result;
+  }
+}
+
+//---------------------- EXAMPLES CLASS ---------------------------------------
+
+// represents Examples and Tests of the turn analytics pipeline
+class ExamplesAnalytics implements IGameConstants {
+  TurnRingBuffer buffer;
+  TurnColumns batch;
+
+  //initializes examples
+  void initData() {
+    this.buffer = new TurnRingBuffer(4);
+    this.batch = new TurnColumns(8);
+  }
+
+  // represents tests for the TurnRingBuffer constructor
+  void testRingBufferCapacity(Tester t) {
+    t.checkConstructorException(
+        new IllegalArgumentException("Capacity must be a power of two: 6"),
+        "TurnRingBuffer", 6);
+  }
+
+  // represents tests for offer and drain
+  void testOfferAndDrain(Tester t) {
+    this.initData();
+
+    for (int i = 0; i < 4; i++) {
+      t.checkExpect(this.buffer.offer(7, i, i + 1, 3, 3, true, 100 + i), true);
+    }
+    // full
+    t.checkExpect(this.buffer.offer(7, 9, 9, 1, 2, false, 200), false);
+
+    t.checkExpect(this.buffer.drain(this.batch), 4);
+    t.checkExpect(this.batch.size, 4);
+    t.checkExpect(this.batch.slots1[0], 0);
+    t.checkExpect(this.batch.slots2[3], 4);
+    t.checkExpect(this.batch.times[3], 103L);
+
+    // empty, then wraps around
+    t.checkExpect(this.buffer.drain(this.batch), 0);
+    t.checkExpect(this.buffer.offer(8, 5, 6, 1, 2, false, 300), true);
+    t.checkExpect(this.buffer.drain(this.batch), 1);
+    t.checkExpect(this.batch.gameIds[0], 8L);
+    t.checkExpect(this.batch.matches[0], false);
+  }
+
+  // represents tests for offer from many threads at once
+  void testConcurrentOffer(Tester t) {
+    final TurnRingBuffer shared = new TurnRingBuffer(1 << 16);
+    Thread[] producers = new Thread[4];
+
+    for (int p = 0; p < producers.length; p++) {
+      final int id = p;
+      producers[p] = new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            shared.offer(id, i, i, 1, 1, true, i);
+          }
+        }
+      });
+      producers[p].start();
+    }
+    for (Thread th : producers) {
+      try {
+        th.join();
+      }
+      catch (InterruptedException e) {
+        t.checkExpect(false, true, "interrupted");
+      }
+    }
+
+    TurnColumns all = new TurnColumns(1 << 16);
+    t.checkExpect(shared.drain(all), 40000);
+
+    // every producer's events arrive complete and in its own order
+    int[] next = new int[producers.length];
+    boolean ordered = true;
+    for (int i = 0; i < all.size; i++) {
+      int id = (int) all.gameIds[i];
+      ordered = ordered && all.slots1[i] == next[id] && all.times[i] == next[id];
+      next[id]++;
+    }
+    t.checkExpect(ordered, true);
+  }
+
+  // represents tests for TurnLog on a game
+  void testTurnLog(Tester t) {
+    this.initData();
+
+    Concentration game = new Concentration(30);
+    TurnLog log = new TurnLog(42, this.buffer);
+    game.observer = log;
+
+    // first pick, same card again (ignored), second pick
+    game.onMouseReleased(new Posn(97, 112));
+    game.onMouseReleased(new Posn(97, 112));
+    t.checkExpect(this.buffer.drain(this.batch), 0);
+    game.onMouseReleased(new Posn(192, 112));
+
+    t.checkExpect(this.buffer.drain(this.batch), 1);
+    t.checkExpect(this.batch.gameIds[0], 42L);
+    t.checkExpect(this.batch.slots1[0], 0);
+    t.checkExpect(this.batch.slots2[0], 1);
+    t.checkExpect(this.batch.ranks1[0], game.pick1.rank);
+    t.checkExpect(this.batch.ranks2[0], game.pick2.rank);
+    t.checkExpect(this.batch.matches[0], game.match);
+
+    // a full buffer drops turns instead of blocking
+    for (int i = 0; i < 4; i++) {
+      this.buffer.offer(0, 0, 0, 0, 0, false, 0);
+    }
+    game.onMouseReleased(new Posn(0, 0));
+    game.onMouseReleased(new Posn(287, 112));
+    game.onMouseReleased(new Posn(382, 112));
+    t.checkExpect(log.dropped, 1L);
+  }
+
+  // represents tests that logging turns keeps clicks allocation free
+  void testTurnLogNoAllocation(Tester t) {
+    Recording rec = new Recording(30, 2000, 0.2, 0);
+    TurnRingBuffer shared = new TurnRingBuffer(1 << 12);
+    TurnColumns sink = new TurnColumns(1 << 12);
+    LoadTestHarness harness = new LoadTestHarness(false);
+
+    long least = Long.MAX_VALUE;
+    for (int round = 0; round < 30; round++) {
+      Concentration game = rec.newGame();
+      game.observer = new TurnLog(round, shared);
+      least = Math.min(least, harness.run(game, rec, 1).allocatedBytes);
+      shared.drain(sink);
+    }
+    t.checkExpect(sink.size > 0, true);
+    t.checkExpect(least, 0L);
+  }
+
+  // represents tests for TurnFileWriter and TurnFileReader
+  void testWriteAndRead(Tester t) {
+    File file;
+    try {
+      file = File.createTempFile("turns", ".col");
+      file.deleteOnExit();
+    }
+    catch (IOException e) {
+      t.checkExpect(false, true, "could not create a temporary file");
+      return;
+    }
+
+    TurnRingBuffer shared = new TurnRingBuffer(4096);
+    TurnFileWriter writer = new TurnFileWriter(shared, file, 64);
+    writer.start();
+
+    // two games share the buffer and the writer
+    Recording rec = new Recording(30, 3000, 0.2, 0);
+    Concentration game1 = rec.newGame();
+    Concentration game2 = rec.newGame();
+    TurnLog log1 = new TurnLog(1, shared);
+    TurnLog log2 = new TurnLog(2, shared);
+    game1.observer = log1;
+    game2.observer = log2;
+    new LoadTestHarness(false).run(game1, rec, 1);
+    new LoadTestHarness(false).run(game2, rec, 1);
+
+    writer.close();
+    t.checkExpect(writer.error, null);
+    t.checkExpect(log1.dropped + log2.dropped, 0L);
+
+    TurnColumns all;
+    try {
+      all = new TurnFileReader(file).readAll();
+    }
+    catch (IOException e) {
+      t.checkExpect(false, true, "could not read " + file);
+      return;
+    }
+
+    t.checkExpect((long) all.size, writer.written);
+    t.checkExpect(all.size > 0, true);
+    t.checkExpect(all.size % 2, 0);
+
+    // both games saw the same turns; matches pair equal ranks
+    boolean consistent = true;
+    int half = all.size / 2;
+    for (int i = 0; i < half; i++) {
+      consistent = consistent && all.gameIds[i] == 1 && all.gameIds[half + i] == 2
+          && all.slots1[i] == all.slots1[half + i]
+          && all.ranks2[i] == all.ranks2[half + i]
+          && (!all.matches[i] || all.ranks1[i] == all.ranks2[i]);
+    }
+    t.checkExpect(consistent, true);
+  }
+}
@@ -1,5 +1,6 @@
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Random;
 
 import javalib.impworld.WorldScene;
@@ -10,10 +11,16 @@ import tester.Tester;
 
 // represents a Card
 class Card implements IGameConstants {
+  // the shared invalid card, returned when no card was clicked
+  // flip and setPosn do nothing to it, so it can be shared by every board and game
+  static final Card NONE = new Card(0, "");
+
   int rank; // 1 = ace, ... number cards ... , 11 = jack, 12 = queen, 13 = king
   String suit;
   boolean faceUp;
-  Color color;
+  // clubs and spades are black, diamonds and hearts red. Kept as a boolean so that
+  // cards without images never load java.awt (getImg makes the Color)
+  boolean black;
   Posn pos;
 
   //---------------------- CONSTRUCTOR ----------------------------------------
@@ -26,12 +33,7 @@ class Card implements IGameConstants {
 
     this.faceUp = false;
 
-    if (this.suit.equals(CLUBS) || this.suit.equals(SPADES)) {
-      this.color = Color.BLACK;
-    }
-    else {
-      this.color = Color.RED;
-    }
+    this.black = this.suit.equals(CLUBS) || this.suit.equals(SPADES);
   }
 
   /* TEMPLATE:
@@ -39,7 +41,7 @@ class Card implements IGameConstants {
    *  this.rank ... int
    *  this.suit ... String
    *  this.faceUp ... boolean
-   *  this.color ... Color
+   *  this.black ... boolean
    *  this.pos ... Posn
    * methods:
    *  this.isMatch ... boolean
@@ -58,7 +60,7 @@ class Card implements IGameConstants {
   // returns if this card and the other card have the same rank and color
   // cards of rank zero are not valid and should return false
   public boolean isMatch(Card other) {
-    return this.rank != 0 && this.rank == other.rank && this.color.equals(other.color);
+    return this.rank != 0 && this.rank == other.rank && this.black == other.black;
   }
 
   //returns if this card and the other card are the same
@@ -66,14 +68,20 @@ class Card implements IGameConstants {
     return this.rank == other.rank && this.suit.equals(other.suit);
   }
 
-  // flip the Card
+  // flip the Card, unless it is Card.NONE
   public void flip() {
-    this.faceUp = !this.faceUp;
+    if (this != NONE) {
+      this.faceUp = !this.faceUp;
+    }
   }
 
-  // set the Position of this Card to given coordinates
+  // set the Position of this Card to given coordinates, unless it is Card.NONE
+  // moves the existing Posn so that re-dealing a board does not allocate
   public void setPosn(int x, int y) {
-    this.pos = new Posn(x, y);
+    if (this != NONE) {
+      this.pos.x = x;
+      this.pos.y = y;
+    }
   }
 
   // return if the mouse position is in this Card
@@ -87,12 +95,13 @@ class Card implements IGameConstants {
   // return the image of this card
   public WorldImage getImg() {
     if (this.faceUp) {
+      Color color = this.black ? Color.BLACK : Color.RED;
       return new OverlayImage(new TextImage(
-          this.rankToString() + " of " + this.suit, CARD_WIDTH / 4, FontStyle.BOLD, this.color),
-          new RectangleImage(CARD_WIDTH,CARD_HEIGHT, OutlineMode.OUTLINE, this.color));
+          this.rankToString() + " of " + this.suit, CARD_WIDTH / 4, FontStyle.BOLD, color),
+          new RectangleImage(CARD_WIDTH,CARD_HEIGHT, OutlineMode.OUTLINE, color));
     }
     else {
-      return FACEDOWN_CARD;
+      return FacedownCard.IMAGE;
     }
   }
 
@@ -140,6 +149,8 @@ class Deck implements IGameConstants {
    * methods:
    *  this.initCardsDefault ... void
    *  this.shuffle ... void
+   *  this.shuffleInPlace ... void
+   *  this.reseed ... void
    *  this.drawCard ... Card
    * methods for fields:
    */
@@ -169,10 +180,24 @@ class Deck implements IGameConstants {
     this.cards = temp;
   }
 
-  // draw a Card from this deck. If empty, return null.
+  // shuffles this deck without allocating (Fisher-Yates)
+  // gives a different order than shuffle for the same seed, but every order is equally likely
+  void shuffleInPlace() {
+    for (int i = this.cards.size() - 1; i > 0; i--) {
+      int j = this.rand.nextInt(i + 1);
+      this.cards.set(i, this.cards.set(j, this.cards.get(i)));
+    }
+  }
+
+  // restart the random sequence of this deck from the given seed
+  void reseed(int seed) {
+    this.rand.setSeed(seed);
+  }
+
+  // draw a Card from this deck. If empty, return Card.NONE
   Card drawCard() {
     if (this.cards.isEmpty()) {
-      return new Card(0, ""); // return an invalid card
+      return Card.NONE; // return the invalid card
     }
     else {
       return this.cards.remove(0);
@@ -180,25 +205,138 @@ class Deck implements IGameConstants {
   }
 }
 
+//---------------------- LAZY DECK CLASS --------------------------------------
+
+// represents a standard deck that is shuffled one card at a time, as cards are drawn
+// Each draw takes a random card of the ones not drawn yet (one step of Fisher-Yates,
+// swapping the last remaining card into the drawn one's place) and only then makes
+// the Card, so a new deck does the same work however many cards it holds
+class LazyDeck implements IGameConstants {
+  // suits in the order of Deck.initCardsDefault
+  static final String[] SUITS = {CLUBS, DIAMONDS, HEARTS, SPADES};
+
+  Random rand;
+  int remaining; // cards not drawn yet
+  // the remaining cards are the codes 0 ... remaining - 1 (code = (rank - 1) * 4 + suit),
+  // except at the positions listed here, which hold the given code instead
+  HashMap<Integer, Integer> moved;
+
+  //---------------------- CONSTRUCTOR ----------------------------------------
+
+  LazyDeck(int seed) {
+    this.rand = new Random(seed);
+    this.remaining = 52;
+    this.moved = new HashMap<Integer, Integer>();
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.rand ... Random
+   *  this.remaining ... int
+   *  this.moved ... HashMap<Integer, Integer>
+   * methods:
+   *  this.codeAt ... int
+   *  this.drawCard ... Card
+   *  this.makeCard ... Card
+   *  this.restart ... void
+   * methods for fields:
+   */
+
+  //---------------------- LAZY DECK FUNCTIONS --------------------------------
+
+  // return the code of the remaining card at the given position
+  int codeAt(int i) {
+    Integer code = this.moved.get(i);
+    if (code == null) {
+      return i;
+    }
+    else {
+      return code;
+    }
+  }
+
+  // draw a card picked at random from the remaining ones, every one equally likely
+  // If empty, return Card.NONE
+  Card drawCard() {
+    if (this.remaining == 0) {
+      return Card.NONE;
+    }
+
+    int i = this.rand.nextInt(this.remaining);
+    int code = this.codeAt(i);
+
+    // the last remaining card takes the place of the drawn one
+    this.remaining--;
+    this.moved.put(i, this.codeAt(this.remaining));
+    this.moved.remove(this.remaining);
+
+    return this.makeCard(code);
+  }
+
+  // return a new card with the given code
+  Card makeCard(int code) {
+    return new Card(code / 4 + 1, SUITS[code % 4]);
+  }
+
+  // put every card back and restart the random sequence from the given seed
+  void restart(int seed) {
+    this.rand.setSeed(seed);
+    this.remaining = 52;
+    this.moved.clear();
+  }
+}
+
 //---------------------- BOARD CLASS ------------------------------------------
 
 // represents the game board
 class Board implements IGameConstants {
   ArrayList<Card> cards;
+  // every card dealt to this board, including removed ones, so collect can return them
+  // (always empty on a lazy board, which restarts its deck instead of collecting)
+  ArrayList<Card> dealt;
+
+  // lazy boards only deal a slot's card the first time the slot is clicked
+  boolean lazy;
+  LazyDeck source; // where a lazy board draws its cards from
+  HashMap<Integer, Card> bound; // slot -> card dealt there, Card.NONE once removed
 
   //---------------------- CONSTRUCTORS ---------------------------------------
 
   // constructor
   Board(Deck deck) {
+    this.lazy = false;
     this.initCards(deck);
   }
 
+  // constructor for a lazy board, which draws each slot's card from the given deck
+  // the first time the slot is clicked. Nothing is dealt yet, so no cards are made
+  // a lazy board keeps drawing from the given deck, which should not be used elsewhere
+  Board(LazyDeck source) {
+    this.lazy = true;
+    this.cards = new ArrayList<Card>();
+    this.dealt = new ArrayList<Card>();
+    this.source = source;
+    this.bound = new HashMap<Integer, Card>();
+  }
+
   /* TEMPLATE:
    * fields:
    *  this.cards ... ArrayList<Card>
+   *  this.dealt ... ArrayList<Card>
+   *  this.lazy ... boolean
+   *  this.source ... LazyDeck
+   *  this.bound ... HashMap<Integer, Card>
    * methods:
    *  this.initCards ... void
+   *  this.deal ... void
+   *  this.collect ... void
+   *  this.restart ... void
+   *  this.slotOf ... int
+   *  this.slotAt ... int
+   *  this.slotX ... int
+   *  this.slotY ... int
    *  this.getClicked ... Card
+   *  this.getClickedLazy ... Card
    *  this.draw ... WorldScene
    *  this.removeCard ... void
    * methods for fields:
@@ -221,21 +359,84 @@ class Board implements IGameConstants {
 
     // create a new ArrayList of size ROWS * COLS (52 by default constants)
     this.cards = new ArrayList<Card>(ROWS * COLS);
+    this.dealt = new ArrayList<Card>(ROWS * COLS);
+
+    this.deal(d);
+  }
 
+  // deal a fresh 4 x 13 layout from the given deck into this board's (empty) lists
+  // reuses the lists and the dealt cards, so re-dealing does not allocate
+  // (eager boards only: a lazy board restarts instead)
+  void deal(Deck d) {
     for (int r = 0; r < ROWS; r++) {
       for (int c = 0; c < COLS; c++) {
         // draw a card from given deck
-        this.cards.add(d.drawCard());
+        Card card = d.drawCard();
+        this.cards.add(card);
+        this.dealt.add(card);
         // set the position of the card based on its row and column indices
-        this.cards.get(r * COLS + c)
-            .setPosn(c * (CARD_WIDTH + SPACE) + EDGE_OFFSET + CARD_WIDTH / 2,
-            r * (CARD_HEIGHT + SPACE) + EDGE_OFFSET + CARD_HEIGHT / 2);
+        card.setPosn(this.slotX(r * COLS + c), this.slotY(r * COLS + c));
+        // a re-dealt card may have been left face up
+        card.faceUp = false;
       }
     }
   }
 
+  // return every card dealt to this board, removed or not, to the given deck
+  // leaves this board empty and ready to deal again
+  void collect(Deck d) {
+    for (int i = 0; i < this.dealt.size(); i++) {
+      d.cards.add(this.dealt.get(i));
+    }
+
+    this.cards.clear();
+    this.dealt.clear();
+  }
+
+  // forget every slot of this lazy board and put every card back in its deck,
+  // restarting the deck from the given seed
+  void restart(int seed) {
+    this.cards.clear();
+    this.bound.clear();
+    this.source.restart(seed);
+  }
+
   //---------------------- BOARD FUNCTIONS ------------------------------------
 
+  // return the slot (row * COLS + column) the given dealt card sits in
+  int slotOf(Card c) {
+    int col = (c.pos.x - EDGE_OFFSET - CARD_WIDTH / 2) / (CARD_WIDTH + SPACE);
+    int row = (c.pos.y - EDGE_OFFSET - CARD_HEIGHT / 2) / (CARD_HEIGHT + SPACE);
+    return row * COLS + col;
+  }
+
+  // return the slot a click at the given position lands in, or -1 if it misses
+  // every slot. Agrees with Card.wasClicked for a card sitting in that slot
+  int slotAt(Posn p) {
+    int dx = p.x - EDGE_OFFSET;
+    int dy = p.y - EDGE_OFFSET;
+    int col = Math.floorDiv(dx, CARD_WIDTH + SPACE);
+    int row = Math.floorDiv(dy, CARD_HEIGHT + SPACE);
+    int inX = dx - col * (CARD_WIDTH + SPACE);
+    int inY = dy - row * (CARD_HEIGHT + SPACE);
+
+    if (col < 0 || col >= COLS || row < 0 || row >= ROWS
+        || inX > CARD_WIDTH || inY <= 0 || inY > CARD_HEIGHT) {
+      return -1;
+    }
+    return row * COLS + col;
+  }
+
+  // x coordinate of the center of the given slot
+  int slotX(int slot) {
+    return (slot % COLS) * (CARD_WIDTH + SPACE) + EDGE_OFFSET + CARD_WIDTH / 2;
+  }
+
+  // y coordinate of the center of the given slot
+  int slotY(int slot) {
+    return (slot / COLS) * (CARD_HEIGHT + SPACE) + EDGE_OFFSET + CARD_HEIGHT / 2;
+  }
+
   // get the card that's been clicked
   Card getClicked(Posn p) {
 
@@ -248,7 +449,13 @@ class Board implements IGameConstants {
      * methods for fields of parameter:
      */
 
-    for (Card c : this.cards) {
+    if (this.lazy) {
+      return this.getClickedLazy(p);
+    }
+
+    // indexed loop so a click does not allocate an iterator
+    for (int i = 0; i < this.cards.size(); i++) {
+      Card c = this.cards.get(i);
       // check if current card was clicked and return it if true
       if (c.wasClicked(p)) {
         return c;
@@ -256,7 +463,35 @@ class Board implements IGameConstants {
     }
 
     // return invalid card if no card has been clicked
-    return new Card(0, "");
+    return Card.NONE;
+  }
+
+  // get the card that's been clicked on a lazy board, dealing it if its slot
+  // has never been clicked before. The slot gets a card picked at random from the
+  // ones not dealt yet, so whatever order the slots are clicked in, every slot is
+  // equally likely to hold every card, as if the board had been dealt all at once
+  Card getClickedLazy(Posn p) {
+    int slot = this.slotAt(p);
+    if (slot < 0) {
+      return Card.NONE;
+    }
+
+    Card c = this.bound.get(slot);
+    if (c == null) {
+      c = this.source.drawCard();
+      if (c == Card.NONE) {
+        // the deck ran out
+        return Card.NONE;
+      }
+
+      c.setPosn(this.slotX(slot), this.slotY(slot));
+      c.faceUp = false;
+      this.bound.put(slot, c);
+      this.cards.add(c);
+    }
+
+    // removed cards are Card.NONE
+    return c;
   }
 
 
@@ -266,6 +501,15 @@ class Board implements IGameConstants {
       background.placeImageXY(c.getImg(), c.pos.x, c.pos.y);
     }
 
+    // slots of a lazy board that were never clicked are still face down
+    if (this.lazy) {
+      for (int slot = 0; slot < ROWS * COLS; slot++) {
+        if (!this.bound.containsKey(slot)) {
+          background.placeImageXY(FacedownCard.IMAGE, this.slotX(slot), this.slotY(slot));
+        }
+      }
+    }
+
     return background;
   }
 
@@ -278,13 +522,18 @@ class Board implements IGameConstants {
      *  c.rank ... int
      *  c.suit ... String
      *  c.faceUp ... boolean
-     *  c.color ... Color
+     *  c.black ... boolean
      *  c.pos ... Posn
      * methods for parameter:
      * methods for fields of parameter:
      */
 
     this.cards.remove(c);
+
+    // keep the slot empty instead of dealing it again
+    if (this.lazy) {
+      this.bound.put(this.slotOf(c), Card.NONE);
+    }
   }
 }
 
@@ -404,6 +653,16 @@ class ExamplesCards implements IGameConstants {
     t.checkExpect(this.card2.pos, new Posn(8, 10));
   }
 
+  // represents tests that the shared invalid card cannot be flipped or moved
+  void testNoneIsInert(Tester t) {
+    Card.NONE.flip();
+    Card.NONE.setPosn(8, 10);
+
+    t.checkExpect(Card.NONE.faceUp, false);
+    t.checkExpect(Card.NONE.pos, new Posn(0, 0));
+    t.checkExpect(Card.NONE, new Card(0, ""));
+  }
+
   // represents tests for wasClicked
   void testWasClicked(Tester t) {
     this.initData();
@@ -433,7 +692,7 @@ class ExamplesCards implements IGameConstants {
     this.initData();
 
     t.checkExpect(this.card1.faceUp, false);
-    t.checkExpect(this.card1.getImg(), FACEDOWN_CARD);
+    t.checkExpect(this.card1.getImg(), FacedownCard.IMAGE);
     this.card1.flip();
     t.checkExpect(this.card1.faceUp, true);
     t.checkExpect(this.card1.getImg(), 
@@ -442,7 +701,7 @@ class ExamplesCards implements IGameConstants {
             new RectangleImage(CARD_WIDTH,CARD_HEIGHT, OutlineMode.OUTLINE, Color.black)));
 
     t.checkExpect(this.card2.faceUp, false);
-    t.checkExpect(this.card2.getImg(), FACEDOWN_CARD);
+    t.checkExpect(this.card2.getImg(), FacedownCard.IMAGE);
     this.card2.flip();
     t.checkExpect(this.card2.faceUp, true);
     t.checkExpect(this.card2.getImg(), 
@@ -451,7 +710,7 @@ class ExamplesCards implements IGameConstants {
             new RectangleImage(CARD_WIDTH,CARD_HEIGHT, OutlineMode.OUTLINE, Color.black)));
 
     t.checkExpect(this.cardInvalid.faceUp, false);
-    t.checkExpect(this.cardInvalid.getImg(), FACEDOWN_CARD);
+    t.checkExpect(this.cardInvalid.getImg(), FacedownCard.IMAGE);
     this.cardInvalid.flip();
     t.checkExpect(this.cardInvalid.getImg(),
         new OverlayImage(new TextImage(
@@ -519,6 +778,32 @@ class ExamplesCards implements IGameConstants {
     t.checkExpect(this.deck4.cards.get(0), new Card(10, DIAMONDS));
   }
 
+  // represents tests for shuffleInPlace
+  void testShuffleInPlace(Tester t) {
+    this.initData();
+
+    t.checkExpect(this.deck2.cards.get(0), new Card(1, CLUBS));
+    this.deck2.shuffleInPlace();
+    t.checkExpect(this.deck2.cards.size(), 52);
+    t.checkExpect(this.deck2.cards.get(0), new Card(10, DIAMONDS));
+    t.checkExpect(this.deck2.cards.get(51), new Card(11, CLUBS));
+
+    // same seed, same order
+    this.deck3 = new Deck(8);
+    this.deck3.shuffleInPlace();
+    t.checkExpect(this.deck3.cards, this.deck2.cards);
+  }
+
+  // represents tests for reseed
+  void testReseed(Tester t) {
+    this.initData();
+
+    this.deck3.reseed(8);
+    this.deck3.shuffle();
+    this.deck2.shuffle();
+    t.checkExpect(this.deck3.cards, this.deck2.cards);
+  }
+
   // represents tests for drawCard
   void testDrawCard(Tester t) {
     this.initData();
@@ -532,6 +817,10 @@ class ExamplesCards implements IGameConstants {
 
     t.checkExpect(this.deck1.drawCard(), new Card(1, HEARTS));
     t.checkExpect(this.deck1.cards.get(0), new Card(1, SPADES)); 
+
+    // an empty deck gives the shared invalid card
+    this.deck1.cards.clear();
+    t.checkExpect(this.deck1.drawCard() == Card.NONE, true);
   }
 
   //-------------------- BOARD FUNCTION TESTS ---------------------------------
@@ -550,6 +839,175 @@ class ExamplesCards implements IGameConstants {
     t.checkExpect(this.board1.cards.get(30), this.card10);
   }
 
+  // represents tests for collect and deal
+  void testCollectAndDeal(Tester t) {
+    this.initData();
+
+    Card first = this.board1.cards.get(0);
+    Card second = this.board1.cards.get(1);
+    first.flip();
+    this.board1.removeCard(second);
+    t.checkExpect(this.board1.cards.size(), 51);
+    t.checkExpect(this.board1.dealt.size(), 52);
+
+    this.board1.collect(this.deck5);
+    t.checkExpect(this.board1.cards.size(), 0);
+    t.checkExpect(this.board1.dealt.size(), 0);
+    t.checkExpect(this.deck5.cards.size(), 52);
+    t.checkExpect(this.deck5.cards.get(0) == first, true);
+    t.checkExpect(this.deck5.cards.get(1) == second, true);
+
+    // deal in the collected order: the same cards back in their slots, all face down
+    this.board1.deal(this.deck5);
+    t.checkExpect(this.deck5.cards.size(), 0);
+    t.checkExpect(this.board1.cards.size(), 52);
+    t.checkExpect(this.board1.cards.get(0) == first, true);
+    t.checkExpect(this.board1.cards.get(1) == second, true);
+    t.checkExpect(first.faceUp, false);
+    this.card8.setPosn(97, 112);
+    t.checkExpect(first, this.card8);
+  }
+
+  // represents tests for slotOf
+  void testSlotOf(Tester t) {
+    this.initData();
+
+    t.checkExpect(this.board1.slotOf(this.board1.cards.get(0)), 0);
+    t.checkExpect(this.board1.slotOf(this.board1.cards.get(14)), 14);
+    t.checkExpect(this.board1.slotOf(this.board1.cards.get(51)), 51);
+    this.board1.removeCard(this.board1.cards.get(0));
+    t.checkExpect(this.board1.slotOf(this.board1.cards.get(0)), 1);
+  }
+
+  // represents tests for slotAt: it agrees with getClicked on every point of the game
+  void testSlotAt(Tester t) {
+    this.initData();
+
+    t.checkExpect(this.board1.slotAt(new Posn(97, 112)), 0);
+    t.checkExpect(this.board1.slotAt(new Posn(1237, 487)), 51);
+    t.checkExpect(this.board1.slotAt(new Posn(0, 0)), -1);
+    t.checkExpect(this.board1.slotAt(new Posn(-200, 112)), -1);
+
+    int mismatches = 0;
+    Posn p = new Posn(0, 0);
+    for (int x = -10; x < GAME_WIDTH; x++) {
+      for (int y = -10; y < GAME_HEIGHT; y++) {
+        p.x = x;
+        p.y = y;
+        Card c = this.board1.getClicked(p);
+        int expected = c == Card.NONE ? -1 : this.board1.slotOf(c);
+        if (this.board1.slotAt(p) != expected) {
+          mismatches++;
+        }
+      }
+    }
+    t.checkExpect(mismatches, 0);
+  }
+
+  // represents tests for LazyDeck
+  void testLazyDeck(Tester t) {
+    LazyDeck deck = new LazyDeck(8);
+    t.checkExpect(deck.remaining, 52);
+    t.checkExpect(deck.moved.size(), 0);
+    t.checkExpect(deck.codeAt(9), 9);
+    t.checkExpect(deck.makeCard(0), new Card(1, CLUBS));
+    t.checkExpect(deck.makeCard(9), new Card(3, DIAMONDS));
+    t.checkExpect(deck.makeCard(51), new Card(13, SPADES));
+
+    // every card of a standard deck comes out once, then the deck is empty
+    ArrayList<Card> drawn = new ArrayList<Card>();
+    for (int i = 0; i < 52; i++) {
+      drawn.add(deck.drawCard());
+    }
+    t.checkExpect(deck.remaining, 0);
+    t.checkExpect(deck.drawCard(), Card.NONE);
+
+    int once = 0;
+    for (Card c : new Deck().cards) {
+      int times = 0;
+      for (Card d : drawn) {
+        if (c.sameCard(d)) {
+          times++;
+        }
+      }
+      once += times == 1 ? 1 : 0;
+    }
+    t.checkExpect(once, 52);
+
+    // a restarted deck draws the same cards in the same order again
+    deck.restart(8);
+    t.checkExpect(deck.remaining, 52);
+    t.checkExpect(deck.moved.size(), 0);
+    ArrayList<Card> again = new ArrayList<Card>();
+    for (int i = 0; i < 52; i++) {
+      again.add(deck.drawCard());
+    }
+    t.checkExpect(again, drawn);
+  }
+
+  // represents tests for a lazy board
+  void testLazyBoard(Tester t) {
+    LazyDeck source = new LazyDeck(8);
+    Board lazy = new Board(source);
+    t.checkExpect(lazy.lazy, true);
+    t.checkExpect(lazy.cards.size(), 0);
+    t.checkExpect(source.remaining, 52);
+
+    // slot 5 gets the first card the deck draws, made when the slot is clicked
+    Card expected = new LazyDeck(8).drawCard();
+    expected.setPosn(lazy.slotX(5), lazy.slotY(5));
+    Card c = lazy.getClicked(new Posn(lazy.slotX(5), lazy.slotY(5)));
+    t.checkExpect(c, expected);
+    t.checkExpect(lazy.slotOf(c), 5);
+    t.checkExpect(source.remaining, 51);
+    t.checkExpect(lazy.cards.size(), 1);
+
+    // the same slot keeps its card
+    t.checkExpect(lazy.getClicked(new Posn(lazy.slotX(5) + 10, lazy.slotY(5))) == c, true);
+    t.checkExpect(source.remaining, 51);
+    t.checkExpect(lazy.getClicked(new Posn(0, 0)), Card.NONE);
+
+    // a removed slot stays empty
+    lazy.removeCard(c);
+    t.checkExpect(lazy.getClicked(new Posn(lazy.slotX(5), lazy.slotY(5))), Card.NONE);
+    t.checkExpect(lazy.cards.size(), 0);
+    t.checkExpect(source.remaining, 51);
+
+    // every other slot is drawn face down
+    WorldScene scene = new WorldScene(GAME_WIDTH, GAME_HEIGHT);
+    for (int slot = 0; slot < ROWS * COLS; slot++) {
+      if (slot != 5) {
+        scene.placeImageXY(FacedownCard.IMAGE, lazy.slotX(slot), lazy.slotY(slot));
+      }
+    }
+    t.checkExpect(lazy.draw(new WorldScene(GAME_WIDTH, GAME_HEIGHT)), scene);
+  }
+
+  // represents tests that revealing every slot of a lazy board deals a whole deck,
+  // and for restart
+  void testLazyRestart(Tester t) {
+    Board lazy = new Board(new LazyDeck(32));
+    for (int i = 0; i < ROWS * COLS; i++) {
+      int slot = (i * 7 + 3) % (ROWS * COLS);
+      lazy.getClicked(new Posn(lazy.slotX(slot), lazy.slotY(slot)));
+    }
+    t.checkExpect(lazy.cards.size(), 52);
+    t.checkExpect(lazy.dealt.size(), 0);
+    t.checkExpect(lazy.source.remaining, 0);
+
+    // the deck is empty now, so a forgotten slot cannot be dealt again
+    lazy.bound.remove(0);
+    t.checkExpect(lazy.getClicked(new Posn(97, 112)), Card.NONE);
+
+    // a restarted board is empty, and deals the same cards when clicked the same way
+    Card first = lazy.bound.get(3);
+    lazy.restart(32);
+    t.checkExpect(lazy.cards.size(), 0);
+    t.checkExpect(lazy.bound.size(), 0);
+    t.checkExpect(lazy.source.remaining, 52);
+    t.checkExpect(lazy.getClicked(new Posn(lazy.slotX(3), lazy.slotY(3))), first);
+  }
+
   // represents tests for getClicked
   void testGetClicked(Tester t) {
     this.initData();
@@ -561,6 +1019,33 @@ class ExamplesCards implements IGameConstants {
     t.checkExpect(this.board1.getClicked(new Posn(1210, 450)), this.card9);
 
     t.checkExpect(this.board1.getClicked(new Posn(1000000, 1000000)), this.cardInvalid);
+    t.checkExpect(this.board1.getClicked(new Posn(1000000, 1000000)) == Card.NONE, true);
+  }
+
+  // represents tests that a missed click does not allocate
+  void testGetClickedNoAllocation(Tester t) {
+    this.initData();
+
+    LoadTestHarness harness = new LoadTestHarness(false);
+    Posn miss = new Posn(GAME_WIDTH / 2, GAME_HEIGHT - 1);
+
+    // warm up
+    for (int i = 0; i < 100000; i++) {
+      this.board1.getClicked(miss);
+    }
+
+    // steady state is the least allocating of several rounds, so a one-off
+    // allocation by the JVM during a round does not count against getClicked
+    long least = Long.MAX_VALUE;
+    for (int round = 0; round < 5; round++) {
+      long before = harness.allocatedBytes();
+      for (int i = 0; i < 100000; i++) {
+        this.board1.getClicked(miss);
+      }
+      least = Math.min(least, harness.allocatedSince(before));
+    }
+
+    t.checkExpect(least, 0L);
   }
 
   // represents tests for draw
@@ -570,7 +1055,7 @@ class ExamplesCards implements IGameConstants {
     WorldScene boardScene = new WorldScene(GAME_WIDTH, GAME_HEIGHT);
     for (int r = 0; r < ROWS; r++) {
       for (int c = 0; c < COLS; c++) {
-        boardScene.placeImageXY(FACEDOWN_CARD,
+        boardScene.placeImageXY(FacedownCard.IMAGE,
             c * (CARD_WIDTH + SPACE) + EDGE_OFFSET + CARD_WIDTH / 2,
             r * (CARD_HEIGHT + SPACE) + EDGE_OFFSET + CARD_HEIGHT / 2);
       }
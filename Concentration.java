@@ -1,6 +1,7 @@
 import tester.*;
 
 import java.awt.Color;
+import java.util.Random;
 
 import javalib.impworld.*;
 import javalib.worldimages.*;
@@ -30,29 +31,39 @@ interface IGameConstants {
   static int GAME_WIDTH = 2 * EDGE_OFFSET + COLS * (CARD_WIDTH + SPACE);
   static int GAME_HEIGHT = 2 * EDGE_OFFSET + 3 * CARD_HEIGHT + ROWS * (CARD_HEIGHT + SPACE);
 
+  // The images below are each built by their own holder class the first time they
+  // are used, so code that never draws (like a headless Deck or Board) never builds
+  // them, and drawing cards does not build the windows or load their fonts.
+
   // image for all facedown cards
-  static WorldImage FACEDOWN_CARD = new RectangleImage(
-      CARD_WIDTH, CARD_HEIGHT, OutlineMode.OUTLINE, Color.BLACK);
+  class FacedownCard {
+    static final WorldImage IMAGE = new RectangleImage(
+        CARD_WIDTH, CARD_HEIGHT, OutlineMode.OUTLINE, Color.BLACK);
+  }
 
   // notification for match
-  static WorldImage MATCH_WINDOW = new OverlayImage(
-      new AboveImage(
-          new TextImage("Match!", CARD_WIDTH / 2, FontStyle.BOLD, Color.BLACK),
-          new TextImage("(Click anywhere to continue)", CARD_WIDTH / 4, 
-              FontStyle.BOLD, Color.BLACK)),
-      new RectangleImage(4 * CARD_WIDTH, 3 * CARD_HEIGHT, OutlineMode.OUTLINE, Color.BLACK));
+  class MatchWindow {
+    static final WorldImage IMAGE = new OverlayImage(
+        new AboveImage(
+            new TextImage("Match!", CARD_WIDTH / 2, FontStyle.BOLD, Color.BLACK),
+            new TextImage("(Click anywhere to continue)", CARD_WIDTH / 4, 
+                FontStyle.BOLD, Color.BLACK)),
+        new RectangleImage(4 * CARD_WIDTH, 3 * CARD_HEIGHT, OutlineMode.OUTLINE, Color.BLACK));
+  }
 
   // notification for no match
-  static WorldImage NO_MATCH_WINDOW = new OverlayImage(
-      new AboveImage(
-          new TextImage("No Match!", CARD_WIDTH / 2, FontStyle.BOLD, Color.BLACK),
-          new TextImage("(Click anywhere to continue)", CARD_WIDTH / 4, 
-              FontStyle.BOLD, Color.BLACK)),
-      new RectangleImage(4 * CARD_WIDTH, 3 * CARD_HEIGHT, OutlineMode.OUTLINE, Color.BLACK));
+  class NoMatchWindow {
+    static final WorldImage IMAGE = new OverlayImage(
+        new AboveImage(
+            new TextImage("No Match!", CARD_WIDTH / 2, FontStyle.BOLD, Color.BLACK),
+            new TextImage("(Click anywhere to continue)", CARD_WIDTH / 4, 
+                FontStyle.BOLD, Color.BLACK)),
+        new RectangleImage(4 * CARD_WIDTH, 3 * CARD_HEIGHT, OutlineMode.OUTLINE, Color.BLACK));
+  }
 }
 
 class Concentration extends World implements IGameConstants {
-  Deck deck; // standard deck of 52 cards
+  Deck deck; // standard deck of 52 cards (null in a lazy game, whose board has its own)
   Board board; // 4 x 13 array of cards on board
 
   int score; // number of pairs remaining. When 0, game ends
@@ -66,8 +77,28 @@ class Concentration extends World implements IGameConstants {
   Card pick2; // second card picked by player
   boolean match; // are the picked cards a pair
 
+  Random rand; // seeds the deck of every new game
+  ITurnObserver observer; // told about every completed turn
+  boolean lazy; // deal each card only when its slot is first clicked
+
   // constructor
   Concentration() {
+    this.rand = new Random();
+    this.observer = new NoTurnObserver();
+    this.lazy = false;
+    this.initGame();
+  }
+
+  // constructor for a reproducible game (every reset is reproducible too)
+  Concentration(int seed) {
+    this(seed, false);
+  }
+
+  // constructor for a reproducible game on a lazy or eagerly dealt board
+  Concentration(int seed, boolean lazy) {
+    this.rand = new Random(seed);
+    this.observer = new NoTurnObserver();
+    this.lazy = lazy;
     this.initGame();
   }
 
@@ -81,17 +112,29 @@ class Concentration extends World implements IGameConstants {
    *  this.pick1 ... Card
    *  this.pick2 ... Card
    *  this.match ... boolean
+   *  this.rand ... Random
+   *  this.observer ... ITurnObserver
+   *  this.lazy ... boolean
    * methods:
    *  this.initGame ... void
+   *  this.resetGame ... void
    *  this.onMouseReleased ... void
+   *  this.dismiss ... void
    *  this.onKeyEvent ... void
    *  this.makeScene ... WorldScene
    *  this.lastScene ... WorldScene
    * methods for fields:
    *  this.deck.initCardsDefault ... void
    *  this.deck.shuffle ... void
+   *  this.deck.shuffleInPlace ... void
+   *  this.deck.reseed ... void
    *  this.deck.drawCard ... Card
    *  this.board.initCards ... void
+   *  this.board.deal ... void
+   *  this.board.collect ... void
+   *  this.board.restart ... void
+   *  this.board.slotOf ... int
+   *  this.board.slotAt ... int
    *  this.board.getClicked ... Card
    *  this.board.draw ... WorldScene
    *  this.board.removeCard ... void
@@ -113,16 +156,44 @@ class Concentration extends World implements IGameConstants {
    */
 
   // initialize all variables to starting values
+  // a lazy game makes no deck: its board picks and makes each card when it is first clicked
   void initGame() {
-    this.deck = new Deck();
-    this.deck.shuffle();
-    this.board = new Board(this.deck);
+    if (this.lazy) {
+      this.deck = null;
+      this.board = new Board(new LazyDeck(this.rand.nextInt()));
+    }
+    else {
+      this.deck = new Deck(this.rand.nextInt());
+      this.deck.shuffle();
+      this.board = new Board(this.deck);
+    }
 
     this.score = 26;
 
     this.stage = 0;
-    this.pick1 = new Card(0, "");
-    this.pick2 = new Card(0, "");
+    this.pick1 = Card.NONE;
+    this.pick2 = Card.NONE;
+    this.match = false;
+  }
+
+  // start a new game on the existing deck, board and cards without allocating
+  // the deck is reseeded from this game's seeds, so seeded games stay reproducible
+  void resetGame() {
+    if (this.lazy) {
+      this.board.restart(this.rand.nextInt());
+    }
+    else {
+      this.board.collect(this.deck);
+      this.deck.reseed(this.rand.nextInt());
+      this.deck.shuffleInPlace();
+      this.board.deal(this.deck);
+    }
+
+    this.score = 26;
+
+    this.stage = 0;
+    this.pick1 = Card.NONE;
+    this.pick2 = Card.NONE;
     this.match = false;
   }
 
@@ -140,34 +211,13 @@ class Concentration extends World implements IGameConstants {
     
     // if in "after-choosing-paused" stage
     if (this.stage == 2) {
-      // reset game to "first pick" stage
-      this.stage = 0;
-
-      // check if chosen cards match
-      if (this.match) {
-        // remove matching cards from board
-        this.board.removeCard(this.pick1);
-        this.board.removeCard(this.pick2);
-
-        // deincrement score
-        this.score--;
-
-        // if score eq 0, end game
-        if (score == 0) {
-          this.endOfWorld("You Win! Woooo!!!");
-        }
-      }
-      // if cards didn't match
-      else {
-        // flip non-matching cards back over
-        this.pick1.flip();
-        this.pick2.flip();        
-      }        
+      // any click closes the window
+      this.dismiss();
     }
     // if in one of the "choosing" stages
     else {
       // get the card that was picked
-      // if the player does not click on a card, chosen will be a card with rank = 0 and suit = ""
+      // if the player does not click on a card, chosen will be Card.NONE (rank = 0)
       Card chosen = this.board.getClicked(pos);
 
       // check if the player clicked on an actual card
@@ -198,16 +248,51 @@ class Concentration extends World implements IGameConstants {
           // check if the chosen cards are the same rank
           // and store the boolean in match
           this.match = this.pick1.isMatch(this.pick2);
+
+          // report the completed turn
+          this.observer.onTurn(this);
         }
       }
     }
   }
 
+  // close the "match / no-match" window and go back to the "first pick" stage
+  // does nothing outside of the "after-choosing-paused" stage
+  void dismiss() {
+    if (this.stage != 2) {
+      return;
+    }
+
+    // reset game to "first pick" stage
+    this.stage = 0;
+
+    // check if chosen cards match
+    if (this.match) {
+      // remove matching cards from board
+      this.board.removeCard(this.pick1);
+      this.board.removeCard(this.pick2);
+
+      // deincrement score
+      this.score--;
+
+      // if score eq 0, end game
+      if (score == 0) {
+        this.endOfWorld("You Win! Woooo!!!");
+      }
+    }
+    // if cards didn't match
+    else {
+      // flip non-matching cards back over
+      this.pick1.flip();
+      this.pick2.flip();        
+    }        
+  }
+
   // onKeyEvent function
   public void onKeyEvent(String key) {
     // reset game if r is pressed
     if (key.equals("r")) {
-      this.initGame();
+      this.resetGame();
     }
   }
 
@@ -220,11 +305,11 @@ class Concentration extends World implements IGameConstants {
     if (this.stage == 2) {
       // draw yes-match window
       if (this.match) {
-        scene.placeImageXY(MATCH_WINDOW, GAME_WIDTH / 2, GAME_HEIGHT - 2 * CARD_HEIGHT);
+        scene.placeImageXY(MatchWindow.IMAGE, GAME_WIDTH / 2, GAME_HEIGHT - 2 * CARD_HEIGHT);
       }
       // draw no-match window
       else {
-        scene.placeImageXY(NO_MATCH_WINDOW, GAME_WIDTH / 2, GAME_HEIGHT - 2 * CARD_HEIGHT);
+        scene.placeImageXY(NoMatchWindow.IMAGE, GAME_WIDTH / 2, GAME_HEIGHT - 2 * CARD_HEIGHT);
       }
     }
     // return scene
@@ -247,6 +332,91 @@ class Concentration extends World implements IGameConstants {
 // Examples for the other classes are in Cards.java file
 // represents examples
 class ExamplesConcentration implements IGameConstants {
+  // represents tests for dismiss
+  void testDismiss(Tester t) {
+    Concentration game = new Concentration(31);
+
+    // nothing to dismiss
+    game.dismiss();
+    t.checkExpect(game.stage, 0);
+
+    game.onMouseReleased(new Posn(97, 112));
+    game.onMouseReleased(new Posn(192, 112));
+    t.checkExpect(game.stage, 2);
+    boolean match = game.match;
+
+    game.dismiss();
+    t.checkExpect(game.stage, 0);
+    t.checkExpect(game.score, match ? 25 : 26);
+    t.checkExpect(game.pick1.faceUp, match);
+    t.checkExpect(game.board.cards.contains(game.pick1), !match);
+  }
+
+  // represents tests for a game on a lazy board
+  void testLazyGame(Tester t) {
+    Concentration lazy = new Concentration(32, true);
+    t.checkExpect(lazy.deck, null);
+    t.checkExpect(lazy.board.cards.size(), 0);
+    t.checkExpect(lazy.board.source.remaining, 52);
+
+    // a turn deals the two clicked slots and nothing else
+    lazy.onMouseReleased(new Posn(97, 112));
+    lazy.onMouseReleased(new Posn(192, 112));
+    t.checkExpect(lazy.stage, 2);
+    t.checkExpect(lazy.pick1.faceUp, true);
+    t.checkExpect(lazy.pick2.faceUp, true);
+    t.checkExpect(lazy.match, lazy.pick1.isMatch(lazy.pick2));
+    t.checkExpect(lazy.board.cards.size(), 2);
+    t.checkExpect(lazy.board.source.remaining, 50);
+
+    // the same seed deals the same cards to the same clicks
+    Concentration again = new Concentration(32, true);
+    again.onMouseReleased(new Posn(97, 112));
+    again.onMouseReleased(new Posn(192, 112));
+    t.checkExpect(again.pick1, lazy.pick1);
+    t.checkExpect(again.pick2, lazy.pick2);
+
+    // a reset puts every card back in the deck
+    lazy.resetGame();
+    t.checkExpect(lazy.board.cards.size(), 0);
+    t.checkExpect(lazy.board.bound.size(), 0);
+    t.checkExpect(lazy.board.source.remaining, 52);
+    t.checkExpect(lazy.board.getClicked(new Posn(97, 112)).rank > 0, true);
+  }
+
+  // represents tests for resetGame
+  void testResetGame(Tester t) {
+    Concentration game = new Concentration(28);
+    Board board = game.board;
+    Card first = board.cards.get(0);
+
+    // pick two cards, continue, and pick one more
+    game.onMouseReleased(new Posn(97, 112));
+    game.onMouseReleased(new Posn(192, 112));
+    game.onMouseReleased(new Posn(0, 0));
+    game.onMouseReleased(new Posn(287, 112));
+    t.checkExpect(game.stage, 1);
+
+    game.resetGame();
+    t.checkExpect(game.board == board, true);
+    t.checkExpect(board.cards.size(), 52);
+    t.checkExpect(board.dealt.size(), 52);
+    t.checkExpect(board.cards.contains(first), true);
+    t.checkExpect(game.score, 26);
+    t.checkExpect(game.stage, 0);
+    t.checkExpect(game.pick1, Card.NONE);
+    t.checkExpect(game.pick2, Card.NONE);
+    t.checkExpect(game.match, false);
+    for (Card c : board.cards) {
+      t.checkExpect(c.faceUp, false);
+    }
+
+    // the same seed always resets to the same layout
+    Concentration other = new Concentration(28);
+    other.onKeyEvent("r");
+    t.checkExpect(other.board.cards, game.board.cards);
+  }
+
   // runs the game
   void testBigBang(Tester t) {
     Concentration game = new Concentration();
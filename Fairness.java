@@ -0,0 +1,366 @@
+import java.util.ArrayList;
+
+import javalib.worldimages.*;
+import tester.Tester;
+
+//---------------------- SHUFFLER CLASSES -------------------------------------
+
+// represents a way of shuffling a deck
+interface IShuffler {
+  // shuffle the given deck using its own Random
+  void shuffle(Deck d);
+}
+
+// represents Deck.shuffle (draws each card out of the remaining ones)
+class RemoveShuffler implements IShuffler {
+  public void shuffle(Deck d) {
+    d.shuffle();
+  }
+}
+
+// represents Deck.shuffleInPlace (Fisher-Yates)
+class InPlaceShuffler implements IShuffler {
+  public void shuffle(Deck d) {
+    d.shuffleInPlace();
+  }
+}
+
+// represents dealing a lazy board, which picks each slot's card when the slot is
+// first clicked. The slots are revealed in an order that depends on the cards
+// revealed so far, as a player's clicks would. The deck only seeds the board, and is
+// left holding the dealt cards in slot order, so checking it checks which card every
+// slot ended up with
+class LazyDealShuffler implements IShuffler, IGameConstants {
+  public void shuffle(Deck d) {
+    Board board = new Board(new LazyDeck(d.rand.nextInt()));
+
+    // the slots not revealed yet; the last card revealed picks the next one
+    int[] hidden = new int[ROWS * COLS];
+    for (int i = 0; i < hidden.length; i++) {
+      hidden[i] = i;
+    }
+    int count = hidden.length;
+    int pick = 0;
+
+    while (count > 0) {
+      int k = pick % count;
+      int slot = hidden[k];
+      count--;
+      hidden[k] = hidden[count];
+
+      Card c = board.getClicked(new Posn(board.slotX(slot), board.slotY(slot)));
+      pick = c.rank * 3 + slot;
+    }
+
+    d.cards.clear();
+    for (int slot = 0; slot < ROWS * COLS; slot++) {
+      d.cards.add(board.bound.get(slot));
+    }
+  }
+}
+
+// represents the classic broken shuffle that swaps every card with any card
+// it is biased, and is used to check that the suite can catch a biased shuffle
+class NaiveSwapShuffler implements IShuffler {
+  public void shuffle(Deck d) {
+    int n = d.cards.size();
+    for (int i = 0; i < n; i++) {
+      int j = d.rand.nextInt(n);
+      d.cards.set(i, d.cards.set(j, d.cards.get(i)));
+    }
+  }
+}
+
+//---------------------- WORKER CLASS -----------------------------------------
+
+// represents one thread's share of the shuffles and what it counted
+class ShuffleWorker implements Runnable, IGameConstants {
+  IShuffler shuffler;
+  long shuffles;
+  Deck deck;
+  Card[] sorted; // this worker's cards in the order of Deck.initCardsDefault
+
+  long[][] positions; // positions[p][c] : times card c ended up in position p
+  long[][] adjacent; // adjacent[a][b] : times card b directly followed card a
+
+  ShuffleWorker(IShuffler shuffler, long shuffles, int seed) {
+    this.shuffler = shuffler;
+    this.shuffles = shuffles;
+    this.deck = new Deck(seed);
+    this.sorted = this.deck.cards.toArray(new Card[52]);
+
+    this.positions = new long[52][52];
+    this.adjacent = new long[52][52];
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.shuffler ... IShuffler
+   *  this.shuffles ... long
+   *  this.deck ... Deck
+   *  this.sorted ... Card[]
+   *  this.positions ... long[][]
+   *  this.adjacent ... long[][]
+   * methods:
+   *  this.run ... void
+   *  this.index ... int
+   */
+
+  // shuffle a sorted deck this worker's number of times, counting every result
+  public void run() {
+    for (long i = 0; i < this.shuffles; i++) {
+      this.deck.cards.clear();
+      for (Card c : this.sorted) {
+        this.deck.cards.add(c);
+      }
+
+      this.shuffler.shuffle(this.deck);
+
+      int prev = -1;
+      for (int p = 0; p < 52; p++) {
+        int card = this.index(this.deck.cards.get(p));
+        this.positions[p][card]++;
+        if (prev >= 0) {
+          this.adjacent[prev][card]++;
+        }
+        prev = card;
+      }
+    }
+  }
+
+  // return the position of the given card in a sorted deck
+  int index(Card c) {
+    int suit;
+    if (c.suit.equals(CLUBS)) {
+      suit = 0;
+    }
+    else if (c.suit.equals(DIAMONDS)) {
+      suit = 1;
+    }
+    else if (c.suit.equals(HEARTS)) {
+      suit = 2;
+    }
+    else {
+      suit = 3;
+    }
+    return (c.rank - 1) * 4 + suit;
+  }
+}
+
+//---------------------- FAIRNESS SUITE CLASS ---------------------------------
+
+// represents a chi-squared check of a shuffler over many shuffles of a sorted deck
+// run in parallel, one worker thread per available processor
+class FairnessSuite {
+  // a z-score above this rejects the shuffle (one sided p of about 3 in 100,000)
+  static final double Z_CRITICAL = 4.0;
+
+  IShuffler shuffler;
+  long shuffles;
+  long elapsedNanos;
+
+  long[][] positions;
+  long[][] adjacent;
+
+  FairnessSuite(IShuffler shuffler, long shuffles, int seed) {
+    this.shuffler = shuffler;
+    this.shuffles = shuffles;
+    this.positions = new long[52][52];
+    this.adjacent = new long[52][52];
+
+    this.run(seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.shuffler ... IShuffler
+   *  this.shuffles ... long
+   *  this.elapsedNanos ... long
+   *  this.positions ... long[][]
+   *  this.adjacent ... long[][]
+   * methods:
+   *  this.run ... void
+   *  this.positionZ ... double
+   *  this.adjacentZ ... double
+   *  this.isFair ... boolean
+   *  this.chiSquared ... double
+   *  this.zScore ... double
+   *  this.shufflesPerSecond ... double
+   */
+
+  // split the shuffles across the given number of workers and add up their counts
+  void run(int seed, int workers) {
+    ArrayList<ShuffleWorker> jobs = new ArrayList<ShuffleWorker>();
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+
+    for (int w = 0; w < workers; w++) {
+      long share = this.shuffles / workers + (w < this.shuffles % workers ? 1 : 0);
+      ShuffleWorker job = new ShuffleWorker(this.shuffler, share, seed + w * 7919);
+      jobs.add(job);
+      threads.add(new Thread(job));
+    }
+
+    long start = System.nanoTime();
+    for (Thread th : threads) {
+      th.start();
+    }
+    for (Thread th : threads) {
+      try {
+        th.join();
+      }
+      catch (InterruptedException e) {
+        throw new IllegalStateException("Interrupted while shuffling", e);
+      }
+    }
+    this.elapsedNanos = System.nanoTime() - start;
+
+    for (ShuffleWorker job : jobs) {
+      for (int a = 0; a < 52; a++) {
+        for (int b = 0; b < 52; b++) {
+          this.positions[a][b] += job.positions[a][b];
+          this.adjacent[a][b] += job.adjacent[a][b];
+        }
+      }
+    }
+  }
+
+  // z-score of the position-by-card table
+  // every card is equally likely in every position. Each of the 52 * 52 counts is
+  // binomial with p = 1 / 52, so the statistic has mean 52 * 52 * (1 - 1 / 52) = 52 * 51,
+  // used as its degrees of freedom
+  double positionZ() {
+    double expected = this.shuffles / 52.0;
+    return this.zScore(this.chiSquared(this.positions, expected, true), 52 * 51);
+  }
+
+  // z-score of the card-followed-by-card table
+  // every ordered pair of different cards is equally likely in each of the 51
+  // adjacent position pairs, so each is expected shuffles * 51 / (52 * 51) times.
+  // A pair shows up at most once per shuffle (p = 1 / 52), so the statistic has
+  // mean 52 * 51 * (1 - 1 / 52) = 51 * 51, used as its degrees of freedom
+  double adjacentZ() {
+    double expected = this.shuffles / 52.0;
+    return this.zScore(this.chiSquared(this.adjacent, expected, false), 51 * 51);
+  }
+
+  // does this shuffle pass both tests
+  boolean isFair() {
+    return this.positionZ() < Z_CRITICAL && this.adjacentZ() < Z_CRITICAL;
+  }
+
+  // the chi-squared statistic of the table against the same expected count in
+  // every cell, skipping the diagonal unless withDiagonal
+  double chiSquared(long[][] table, double expected, boolean withDiagonal) {
+    double sum = 0;
+    for (int a = 0; a < 52; a++) {
+      for (int b = 0; b < 52; b++) {
+        if (withDiagonal || a != b) {
+          double diff = table[a][b] - expected;
+          sum += diff * diff / expected;
+        }
+      }
+    }
+    return sum;
+  }
+
+  // the standard normal z-score of a chi-squared statistic with df degrees of freedom
+  // (Wilson-Hilferty, accurate for the thousands of degrees of freedom used here)
+  double zScore(double chiSquared, int df) {
+    double k = 2.0 / (9.0 * df);
+    return (Math.cbrt(chiSquared / df) - (1 - k)) / Math.sqrt(k);
+  }
+
+  // shuffles done per second, over all workers
+  double shufflesPerSecond() {
+    return this.shuffles * 1e9 / Math.max(this.elapsedNanos, 1);
+  }
+
+  public String toString() {
+    return String.format("%s: %d shuffles, %.0f shuffles/s, position z %.2f, adjacent z %.2f",
+        this.shuffler.getClass().getSimpleName(), this.shuffles, this.shufflesPerSecond(),
+        this.positionZ(), this.adjacentZ());
+  }
+}
+
+//---------------------- EXAMPLES CLASS ---------------------------------------
+
+// represents Examples and Tests of the shuffle fairness suite
+// the number of shuffles per check is the fairness.shuffles system property
+// (10,000,000 before shipping a shuffle change, a quick default otherwise)
+class ExamplesFairness {
+  long shuffles = Long.getLong("fairness.shuffles", 200000);
+
+  // represents tests for ShuffleWorker
+  void testShuffleWorker(Tester t) {
+    ShuffleWorker job = new ShuffleWorker(new InPlaceShuffler(), 10, 1);
+    t.checkExpect(job.index(new Card(1, IGameConstants.CLUBS)), 0);
+    t.checkExpect(job.index(new Card(3, IGameConstants.CLUBS)), 8);
+    t.checkExpect(job.index(new Card(13, IGameConstants.SPADES)), 51);
+
+    job.run();
+    long total = 0;
+    for (int p = 0; p < 52; p++) {
+      for (int c = 0; c < 52; c++) {
+        total += job.positions[p][c];
+      }
+    }
+    t.checkExpect(total, 520L);
+    t.checkExpect(job.deck.cards.size(), 52);
+  }
+
+  // represents tests for zScore
+  void testZScore(Tester t) {
+    FairnessSuite suite = new FairnessSuite(new InPlaceShuffler(), 0, 1);
+    // the mean of a chi-squared distribution is its degrees of freedom
+    t.checkInexact(suite.zScore(2601, 2601), 0.0, 0.01);
+    t.checkExpect(suite.zScore(3000, 2601) > FairnessSuite.Z_CRITICAL, true);
+  }
+
+  // represents tests that both shipped shuffles are unbiased
+  void testShufflesAreFair(Tester t) {
+    FairnessSuite remove = new FairnessSuite(new RemoveShuffler(), this.shuffles, 29);
+    FairnessSuite inPlace = new FairnessSuite(new InPlaceShuffler(), this.shuffles, 29);
+    System.out.println(remove);
+    System.out.println(inPlace);
+
+    t.checkExpect(remove.isFair(), true);
+    t.checkExpect(inPlace.isFair(), true);
+  }
+
+  // represents tests that dealing lazily gives every slot every card equally often,
+  // whatever order the slots are clicked in
+  void testLazyDealIsFair(Tester t) {
+    FairnessSuite lazy = new FairnessSuite(new LazyDealShuffler(), this.shuffles / 4, 32);
+    System.out.println(lazy);
+
+    t.checkExpect(lazy.isFair(), true);
+  }
+
+  // represents tests that a fair shuffle scores a mean z close to 0 over several seeds
+  // (the z-scores of a fair shuffle are about standard normal, so the mean of 25 of
+  // them has sd 0.2 and is within 0.5 of 0 unless something is off by a constant)
+  void testFairMeanZ(Tester t) {
+    int seeds = 25;
+    double positionSum = 0;
+    double adjacentSum = 0;
+    for (int seed = 0; seed < seeds; seed++) {
+      FairnessSuite suite = new FairnessSuite(new InPlaceShuffler(), 20000, 100 + seed);
+      positionSum += suite.positionZ();
+      adjacentSum += suite.adjacentZ();
+    }
+
+    System.out.println(String.format("InPlaceShuffler: mean position z %.2f, mean adjacent z %.2f",
+        positionSum / seeds, adjacentSum / seeds));
+    t.checkExpect(Math.abs(positionSum / seeds) < 0.5, true);
+    t.checkExpect(Math.abs(adjacentSum / seeds) < 0.5, true);
+  }
+
+  // represents tests that the suite catches a biased shuffle
+  void testCatchesBias(Tester t) {
+    FairnessSuite naive = new FairnessSuite(new NaiveSwapShuffler(), this.shuffles, 29);
+    System.out.println(naive);
+
+    t.checkExpect(naive.positionZ() > FairnessSuite.Z_CRITICAL, true);
+    t.checkExpect(naive.isFair(), false);
+  }
+}
@@ -0,0 +1,472 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import javalib.worldimages.*;
+import tester.Tester;
+
+//---------------------- INPUT EVENT CLASSES ----------------------------------
+
+// represents a single input event that can be replayed against a game
+interface IInputEvent {
+  // apply this event to the given game
+  void replay(Concentration game);
+
+  // return the one line text form of this event
+  String serialize();
+}
+
+// represents a mouse release at a position
+class ClickEvent implements IInputEvent {
+  Posn pos;
+
+  ClickEvent(Posn pos) {
+    this.pos = pos;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.pos ... Posn
+   * methods:
+   *  this.replay ... void
+   *  this.serialize ... String
+   */
+
+  // release the mouse over this position
+  public void replay(Concentration game) {
+    game.onMouseReleased(this.pos);
+  }
+
+  // "click x y"
+  public String serialize() {
+    return "click " + this.pos.x + " " + this.pos.y;
+  }
+}
+
+// represents a key press
+class KeyPressEvent implements IInputEvent {
+  String key;
+
+  KeyPressEvent(String key) {
+    this.key = key;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.key ... String
+   * methods:
+   *  this.replay ... void
+   *  this.serialize ... String
+   */
+
+  // press this key
+  public void replay(Concentration game) {
+    game.onKeyEvent(this.key);
+  }
+
+  // "key k"
+  public String serialize() {
+    return "key " + this.key;
+  }
+}
+
+// represents the "match / no match" window being closed without a click,
+// e.g. by a server timer
+class DismissEvent implements IInputEvent {
+  // close the window if it is open
+  public void replay(Concentration game) {
+    game.dismiss();
+  }
+
+  // "dismiss"
+  public String serialize() {
+    return "dismiss";
+  }
+}
+
+//---------------------- RECORDING CLASS --------------------------------------
+
+// represents a stream of input events for a game started from a known seed
+class Recording implements IGameConstants {
+  int seed; // seed of the game the events were recorded against
+  ArrayList<IInputEvent> events;
+
+  //---------------------- CONSTRUCTORS ---------------------------------------
+
+  // an empty recording
+  Recording(int seed) {
+    this.seed = seed;
+    this.events = new ArrayList<IInputEvent>();
+  }
+
+  // a synthetic recording of the given number of events
+  // missRate is the chance a click lands outside every card
+  // every resetEvery-th event is an "r" key press (0 for none)
+  Recording(int seed, int count, double missRate, int resetEvery) {
+    this(seed);
+    Random rand = new Random(seed);
+
+    for (int i = 1; i <= count; i++) {
+      if (resetEvery > 0 && i % resetEvery == 0) {
+        this.events.add(new KeyPressEvent("r"));
+      }
+      else if (rand.nextDouble() < missRate) {
+        // the bottom of the window is below every card
+        this.events.add(new ClickEvent(new Posn(rand.nextInt(GAME_WIDTH),
+            GAME_HEIGHT - 1 - rand.nextInt(2 * CARD_HEIGHT))));
+      }
+      else {
+        // the center of a random slot
+        int r = rand.nextInt(ROWS);
+        int c = rand.nextInt(COLS);
+        this.events.add(new ClickEvent(new Posn(
+            c * (CARD_WIDTH + SPACE) + EDGE_OFFSET + CARD_WIDTH / 2,
+            r * (CARD_HEIGHT + SPACE) + EDGE_OFFSET + CARD_HEIGHT / 2)));
+      }
+    }
+  }
+
+  // a recording read back from the output of serialize
+  Recording(String text) {
+    this(0);
+    String[] lines = text.split("\n");
+
+    for (String line : lines) {
+      String[] parts = line.trim().split(" ");
+
+      // a key is the rest of the line as it is, since keys like " " and "Page Up"
+      // have spaces in them
+      if (line.startsWith("key ")) {
+        this.events.add(new KeyPressEvent(line.substring("key ".length())));
+      }
+      else if (parts[0].equals("seed")) {
+        this.seed = Integer.parseInt(parts[1]);
+      }
+      else if (parts[0].equals("click")) {
+        this.events.add(new ClickEvent(
+            new Posn(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]))));
+      }
+      else if (parts[0].equals("dismiss")) {
+        this.events.add(new DismissEvent());
+      }
+      else if (!parts[0].isEmpty()) {
+        throw new IllegalArgumentException("Unknown event: " + line);
+      }
+    }
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.seed ... int
+   *  this.events ... ArrayList<IInputEvent>
+   * methods:
+   *  this.add ... void
+   *  this.serialize ... String
+   *  this.newGame ... Concentration
+   */
+
+  //---------------------- RECORDING FUNCTIONS --------------------------------
+
+  // add an event to the end of this recording
+  void add(IInputEvent e) {
+    this.events.add(e);
+  }
+
+  // return the text form of this recording, one event per line
+  String serialize() {
+    StringBuilder sb = new StringBuilder("seed " + this.seed + "\n");
+    for (IInputEvent e : this.events) {
+      sb.append(e.serialize()).append("\n");
+    }
+    return sb.toString();
+  }
+
+  // return a fresh game in the state this recording starts from
+  Concentration newGame() {
+    return new Concentration(this.seed);
+  }
+}
+
+//---------------------- RECORDING GAME CLASS ---------------------------------
+
+// represents a game that records every input it receives
+// play it with bigBang and replay the recording with a LoadTestHarness
+class RecordingConcentration extends Concentration {
+  Recording recording;
+
+  RecordingConcentration(int seed) {
+    super(seed);
+    this.recording = new Recording(seed);
+  }
+
+  // record then handle the mouse release
+  public void onMouseReleased(Posn pos) {
+    this.recording.add(new ClickEvent(new Posn(pos.x, pos.y)));
+    super.onMouseReleased(pos);
+  }
+
+  // record then handle the key
+  public void onKeyEvent(String key) {
+    this.recording.add(new KeyPressEvent(key));
+    super.onKeyEvent(key);
+  }
+}
+
+//---------------------- HARNESS CLASSES --------------------------------------
+
+// represents the measurements of one harness run
+class LoadTestResult {
+  int events;
+  long elapsedNanos;
+  long allocatedBytes; // -1 if the JVM cannot measure allocation
+  long p50Nanos;
+  long p99Nanos;
+  long maxNanos;
+
+  LoadTestResult(int events, long elapsedNanos, long allocatedBytes, long[] latencies) {
+    this.events = events;
+    this.elapsedNanos = elapsedNanos;
+    this.allocatedBytes = allocatedBytes;
+
+    long[] sorted = Arrays.copyOf(latencies, events);
+    Arrays.sort(sorted);
+    this.p50Nanos = this.percentile(sorted, 0.50);
+    this.p99Nanos = this.percentile(sorted, 0.99);
+    this.maxNanos = events == 0 ? 0 : sorted[events - 1];
+  }
+
+  // return the given percentile of the sorted latencies
+  long percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int i = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(i, 0)];
+  }
+
+  // events handled per second
+  double throughput() {
+    return this.events * 1e9 / Math.max(this.elapsedNanos, 1);
+  }
+
+  // bytes allocated per event, -1 if unknown
+  double allocatedPerEvent() {
+    if (this.allocatedBytes < 0) {
+      return -1;
+    }
+    return (double) this.allocatedBytes / Math.max(this.events, 1);
+  }
+
+  public String toString() {
+    return String.format("%d events, %.0f events/s, %.1f bytes/event, "
+        + "p50 %d ns, p99 %d ns, max %d ns",
+        this.events, this.throughput(), this.allocatedPerEvent(),
+        this.p50Nanos, this.p99Nanos, this.maxNanos);
+  }
+}
+
+// drives a game headlessly from a recording, optionally rendering after every event
+// like the real loop does, and measures throughput, allocation and latency
+class LoadTestHarness {
+  boolean render; // call makeScene after every event
+  long overhead; // bytes allocated by reading the allocation counter itself
+
+  LoadTestHarness(boolean render) {
+    this.render = render;
+
+    long start = this.allocatedBytes();
+    this.overhead = this.allocatedBytes() - start;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.render ... boolean
+   *  this.overhead ... long
+   * methods:
+   *  this.replay ... Concentration
+   *  this.run ... LoadTestResult
+   *  this.allocatedBytes ... long
+   *  this.allocatedSince ... long
+   */
+
+  // replay every event of the recording on a fresh game and return the game
+  Concentration replay(Recording rec) {
+    Concentration game = rec.newGame();
+    this.run(game, rec, 1);
+    return game;
+  }
+
+  // replay the recording the given number of times on the given game and measure it
+  LoadTestResult run(Concentration game, Recording rec, int rounds) {
+    int n = rec.events.size() * rounds;
+    long[] latencies = new long[n];
+    int i = 0;
+
+    long startBytes = this.allocatedBytes();
+    long start = System.nanoTime();
+
+    for (int round = 0; round < rounds; round++) {
+      for (int e = 0; e < rec.events.size(); e++) {
+        long t0 = System.nanoTime();
+        rec.events.get(e).replay(game);
+        if (this.render) {
+          game.makeScene();
+        }
+        latencies[i] = System.nanoTime() - t0;
+        i++;
+      }
+    }
+
+    long elapsed = System.nanoTime() - start;
+    long allocated = this.allocatedSince(startBytes);
+
+    return new LoadTestResult(n, elapsed, allocated, latencies);
+  }
+
+  // bytes allocated so far by the current thread, -1 if the JVM cannot tell
+  long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  // bytes allocated by the current thread since the given allocatedBytes reading,
+  // not counting the reading itself. -1 if the JVM cannot tell
+  long allocatedSince(long start) {
+    if (start < 0) {
+      return -1;
+    }
+    return this.allocatedBytes() - start - this.overhead;
+  }
+}
+
+//---------------------- EXAMPLES CLASS ---------------------------------------
+
+// represents Examples and Tests of the load test harness
+class ExamplesLoadTest implements IGameConstants {
+  Recording rec1;
+  Recording rec2;
+  LoadTestHarness headless;
+  LoadTestHarness rendering;
+
+  //initializes examples
+  void initData() {
+    this.rec1 = new Recording(7);
+    // first pick (1, 1), second pick (1, 2), continue, dismiss (no window), "r"
+    this.rec1.add(new ClickEvent(new Posn(97, 112)));
+    this.rec1.add(new ClickEvent(new Posn(192, 112)));
+    this.rec1.add(new ClickEvent(new Posn(0, 0)));
+    this.rec1.add(new DismissEvent());
+    this.rec1.add(new KeyPressEvent("r"));
+
+    this.rec2 = new Recording(11, 2000, 0.3, 500);
+    this.headless = new LoadTestHarness(false);
+    this.rendering = new LoadTestHarness(true);
+  }
+
+  // represents tests for the synthetic Recording constructor
+  void testSyntheticRecording(Tester t) {
+    this.initData();
+
+    t.checkExpect(this.rec2.events.size(), 2000);
+    t.checkExpect(this.rec2.events.get(499), new KeyPressEvent("r"));
+    t.checkExpect(new Recording(11, 2000, 0.3, 500).events, this.rec2.events);
+  }
+
+  // represents tests for serialize and the parsing Recording constructor
+  void testSerialize(Tester t) {
+    this.initData();
+
+    t.checkExpect(this.rec1.serialize(),
+        "seed 7\nclick 97 112\nclick 192 112\nclick 0 0\ndismiss\nkey r\n");
+    t.checkExpect(new Recording(this.rec1.serialize()).events, this.rec1.events);
+    t.checkExpect(new Recording(this.rec2.serialize()).events, this.rec2.events);
+    t.checkExpect(new Recording(this.rec2.serialize()).seed, 11);
+
+    // keys with spaces in them: the space bar and multi-word names
+    Recording keys = new Recording(3);
+    keys.add(new KeyPressEvent(" "));
+    keys.add(new KeyPressEvent("Page Up"));
+    keys.add(new KeyPressEvent("r"));
+    t.checkExpect(keys.serialize(), "seed 3\nkey  \nkey Page Up\nkey r\n");
+    t.checkExpect(new Recording(keys.serialize()).events, keys.events);
+    t.checkConstructorException(new IllegalArgumentException("Unknown event: jump 1"),
+        "Recording", "jump 1");
+  }
+
+  // represents tests for RecordingConcentration
+  void testRecordingConcentration(Tester t) {
+    this.initData();
+
+    RecordingConcentration game = new RecordingConcentration(7);
+    for (IInputEvent e : this.rec1.events) {
+      e.replay(game);
+    }
+    // a dismiss does not come from the player, so it is not recorded
+    t.checkExpect(game.recording.serialize(),
+        "seed 7\nclick 97 112\nclick 192 112\nclick 0 0\nkey r\n");
+  }
+
+  // represents tests for replay: the same recording always ends in the same state
+  void testReplayDeterministic(Tester t) {
+    this.initData();
+
+    Concentration game1 = this.headless.replay(this.rec2);
+    Concentration game2 = this.rendering.replay(this.rec2);
+    t.checkExpect(game1.board.cards, game2.board.cards);
+    t.checkExpect(game1.score, game2.score);
+    t.checkExpect(game1.stage, game2.stage);
+    t.checkExpect(game1.pick1, game2.pick1);
+
+    Concentration game3 = this.headless.replay(new Recording(this.rec1.serialize()));
+    Concentration game4 = this.headless.replay(this.rec1);
+    t.checkExpect(game3.board.cards, game4.board.cards);
+  }
+
+  // represents tests for run
+  void testRun(Tester t) {
+    this.initData();
+
+    LoadTestResult result = this.rendering.run(this.rec2.newGame(), this.rec2, 3);
+    t.checkExpect(result.events, 6000);
+    t.checkExpect(result.p50Nanos <= result.p99Nanos, true);
+    t.checkExpect(result.p99Nanos <= result.maxNanos, true);
+    t.checkExpect(result.allocatedBytes != 0, true);
+  }
+
+  // represents tests that clicks, hits and misses alike, and resets
+  // do not allocate in steady state
+  void testClickNoAllocation(Tester t) {
+    Recording rec = new Recording(27, 2000, 0.5, 250);
+
+    // warm up
+    this.headless = new LoadTestHarness(false);
+    this.headless.run(rec.newGame(), rec, 50);
+
+    // steady state is the least allocating of several runs
+    long least = Long.MAX_VALUE;
+    for (int round = 0; round < 5; round++) {
+      Concentration game = rec.newGame();
+      least = Math.min(least, this.headless.run(game, rec, 1).allocatedBytes);
+      t.checkExpect(game.score > 0, true);
+    }
+    t.checkExpect(least, 0L);
+  }
+
+  // runs the harness at a high event rate and prints the measurements
+  void testLoad(Tester t) {
+    Recording rec = new Recording(26, 100000, 0.3, 10000);
+
+    // warm up
+    this.headless = new LoadTestHarness(false);
+    this.rendering = new LoadTestHarness(true);
+    this.headless.run(rec.newGame(), rec, 2);
+    this.rendering.run(rec.newGame(), rec, 1);
+
+    System.out.println("input only: " + this.headless.run(rec.newGame(), rec, 5));
+    System.out.println("input + makeScene: " + this.rendering.run(rec.newGame(), rec, 2));
+  }
+}
@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import tester.Tester;
+
+//---------------------- MATCH BATCH CLASS ------------------------------------
+
+// represents checking Card.isMatch for many pairs at once over packed int keys
+// A card's key is rank * 2 + (1 if black), so two cards match exactly when their keys
+// are equal and the rank is not 0 (key > 1). The loop in evaluate is branch free and
+// made only of int operations, so that the JIT can auto-vectorize it
+class MatchBatch {
+
+  // return the key of the given card
+  int pack(Card c) {
+    return c.rank * 2 + (c.black ? 1 : 0);
+  }
+
+  // return the keys of the given cards, in order
+  int[] packAll(ArrayList<Card> cards) {
+    int[] keys = new int[cards.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = this.pack(cards.get(i));
+    }
+    return keys;
+  }
+
+  // set out[i] to 1 if the cards with keys a[i] and b[i] match and 0 if not,
+  // for the first n pairs, and return how many matched
+  int evaluate(int[] a, int[] b, int[] out, int n) {
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      int x = a[i];
+      // 1 if x == b[i]: (x ^ b[i]) - 1 is negative only when x ^ b[i] is 0
+      int same = ((x ^ b[i]) - 1) >>> 31;
+      // 1 if x > 1: 1 - x is negative only when x > 1
+      int valid = (1 - x) >>> 31;
+      out[i] = same & valid;
+      count += out[i];
+    }
+    return count;
+  }
+
+  // the same as evaluate, one Card.isMatch call per pair
+  int evaluateCards(Card[] a, Card[] b, int[] out, int n) {
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      out[i] = a[i].isMatch(b[i]) ? 1 : 0;
+      count += out[i];
+    }
+    return count;
+  }
+}
+
+//---------------------- EXAMPLES CLASS ---------------------------------------
+
+// represents Examples and Tests of MatchBatch
+class ExamplesMatchBatch implements IGameConstants {
+  MatchBatch batch = new MatchBatch();
+  ArrayList<Card> all; // every card of a deck, and the invalid card
+
+  //initializes examples
+  void initData() {
+    this.all = new Deck().cards;
+    this.all.add(Card.NONE);
+    this.all.add(new Card(0, CLUBS));
+  }
+
+  // represents tests for pack
+  void testPack(Tester t) {
+    t.checkExpect(this.batch.pack(new Card(1, SPADES)), 3);
+    t.checkExpect(this.batch.pack(new Card(1, HEARTS)), 2);
+    t.checkExpect(this.batch.pack(new Card(13, CLUBS)), 27);
+    t.checkExpect(this.batch.pack(Card.NONE), 0);
+  }
+
+  // represents tests that evaluate agrees with Card.isMatch on every pair of cards
+  void testEvaluateAgrees(Tester t) {
+    this.initData();
+
+    int n = this.all.size() * this.all.size();
+    Card[] cardsA = new Card[n];
+    Card[] cardsB = new Card[n];
+    for (int i = 0; i < this.all.size(); i++) {
+      for (int j = 0; j < this.all.size(); j++) {
+        cardsA[i * this.all.size() + j] = this.all.get(i);
+        cardsB[i * this.all.size() + j] = this.all.get(j);
+      }
+    }
+
+    int[] keysA = new int[n];
+    int[] keysB = new int[n];
+    for (int i = 0; i < n; i++) {
+      keysA[i] = this.batch.pack(cardsA[i]);
+      keysB[i] = this.batch.pack(cardsB[i]);
+    }
+
+    int[] expected = new int[n];
+    int[] actual = new int[n];
+    int expectedCount = this.batch.evaluateCards(cardsA, cardsB, expected, n);
+    int actualCount = this.batch.evaluate(keysA, keysB, actual, n);
+
+    // each card matches itself and the other card of its rank and color
+    t.checkExpect(expectedCount, 52 * 2);
+    t.checkExpect(actualCount, expectedCount);
+    t.checkExpect(actual, expected);
+  }
+
+  // represents tests for evaluate on fewer pairs than the arrays hold
+  void testEvaluatePartial(Tester t) {
+    int[] a = {3, 3, 0, 27};
+    int[] b = {3, 2, 0, 27};
+    int[] out = {9, 9, 9, 9};
+
+    t.checkExpect(this.batch.evaluate(a, b, out, 3), 1);
+    t.checkExpect(out, new int[] {1, 0, 0, 9});
+  }
+
+  // compares evaluate with a Card.isMatch call per pair and prints the time per pair
+  void testBenchmark(Tester t) {
+    this.initData();
+
+    int n = 1 << 20;
+    Random rand = new Random(33);
+    Card[] cardsA = new Card[n];
+    Card[] cardsB = new Card[n];
+    int[] keysA = new int[n];
+    int[] keysB = new int[n];
+    for (int i = 0; i < n; i++) {
+      cardsA[i] = this.all.get(rand.nextInt(52));
+      cardsB[i] = this.all.get(rand.nextInt(52));
+      keysA[i] = this.batch.pack(cardsA[i]);
+      keysB[i] = this.batch.pack(cardsB[i]);
+    }
+    int[] out = new int[n];
+
+    // warm up
+    int check = 0;
+    for (int round = 0; round < 20; round++) {
+      check += this.batch.evaluateCards(cardsA, cardsB, out, n);
+      check -= this.batch.evaluate(keysA, keysB, out, n);
+    }
+    t.checkExpect(check, 0);
+
+    int rounds = 20;
+    long start = System.nanoTime();
+    for (int round = 0; round < rounds; round++) {
+      this.batch.evaluateCards(cardsA, cardsB, out, n);
+    }
+    long perCard = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int round = 0; round < rounds; round++) {
+      this.batch.evaluate(keysA, keysB, out, n);
+    }
+    long packed = System.nanoTime() - start;
+
+    System.out.println(String.format("Card.isMatch: %.2f ns/pair, packed: %.2f ns/pair",
+        (double) perCard / rounds / n, (double) packed / rounds / n));
+  }
+}
@@ -0,0 +1,671 @@
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import javalib.worldimages.*;
+import tester.Tester;
+
+//---------------------- TIMER CLASSES ----------------------------------------
+
+// represents something to do when a timer runs out
+interface ITimerTask {
+  // the timer ran out
+  void fire();
+}
+
+// represents a task waiting in a TimerWheel
+class TimerEntry {
+  long deadline; // tick the task is due
+  ITimerTask task;
+  TimerEntry next; // next entry in the same slot
+
+  TimerEntry(long deadline, ITimerTask task) {
+    this.deadline = deadline;
+    this.task = task;
+  }
+}
+
+// represents a hierarchical timer wheel: LEVELS wheels of SLOTS slots each, where a
+// slot of level L covers SLOTS^L ticks. Scheduling and firing are constant time;
+// entries in a coarse slot are moved down a level when the finer wheel wraps around.
+// Not thread safe: each worker owns its own wheel
+class TimerWheel {
+  static final int BITS = 6;
+  static final int SLOTS = 1 << BITS; // 64
+  static final int LEVELS = 3; // up to 64^3 = 262,144 ticks ahead
+
+  TimerEntry[][] wheels; // wheels[level][slot] : first entry of the slot
+  long now; // current tick
+  int pending; // entries scheduled and not yet fired
+
+  TimerWheel() {
+    this.wheels = new TimerEntry[LEVELS][SLOTS];
+    this.now = 0;
+    this.pending = 0;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.wheels ... TimerEntry[][]
+   *  this.now ... long
+   *  this.pending ... int
+   * methods:
+   *  this.schedule ... void
+   *  this.place ... void
+   *  this.advance ... void
+   *  this.advanceTo ... void
+   *  this.cascade ... void
+   */
+
+  // run the task delay ticks from now (at least one)
+  void schedule(ITimerTask task, long delay) {
+    this.place(new TimerEntry(this.now + Math.max(delay, 1), task));
+    this.pending++;
+  }
+
+  // put the entry in the finest level that reaches its deadline
+  void place(TimerEntry e) {
+    long ticks = e.deadline - this.now;
+    int level = 0;
+    while (level < LEVELS - 1 && ticks >= (1L << (BITS * (level + 1)))) {
+      level++;
+    }
+
+    int slot = (int) ((e.deadline >> (BITS * level)) & (SLOTS - 1));
+    e.next = this.wheels[level][slot];
+    this.wheels[level][slot] = e;
+  }
+
+  // move one tick forward and fire everything due on it
+  void advance() {
+    this.now++;
+
+    // when a wheel wraps around, bring the next slot of the coarser wheel down,
+    // coarsest first so its entries can still land in finer slots cascaded after it
+    int top = 0;
+    while (top < LEVELS - 1 && (this.now & ((1L << (BITS * (top + 1))) - 1)) == 0) {
+      top++;
+    }
+    for (int level = top; level >= 1; level--) {
+      this.cascade(level, (int) ((this.now >> (BITS * level)) & (SLOTS - 1)));
+    }
+
+    int slot = (int) (this.now & (SLOTS - 1));
+    TimerEntry e = this.wheels[0][slot];
+    this.wheels[0][slot] = null;
+
+    while (e != null) {
+      TimerEntry next = e.next;
+      this.pending--;
+      e.task.fire();
+      e = next;
+    }
+  }
+
+  // move forward to the given tick, firing everything due on the way
+  void advanceTo(long tick) {
+    while (this.now < tick) {
+      this.advance();
+    }
+  }
+
+  // re-place every entry of the given slot, now that it is close enough for finer wheels
+  void cascade(int level, int slot) {
+    TimerEntry e = this.wheels[level][slot];
+    this.wheels[level][slot] = null;
+
+    while (e != null) {
+      TimerEntry next = e.next;
+      this.place(e);
+      e = next;
+    }
+  }
+}
+
+//---------------------- HOSTED GAME CLASSES ----------------------------------
+
+// represents the "match / no match" window being closed by a timer
+// does nothing if the player already closed the window of that turn
+class TimedDismiss extends DismissEvent implements ITimerTask {
+  HostedGame host;
+  long turn; // the turn whose window this closes
+
+  TimedDismiss(HostedGame host, long turn) {
+    this.host = host;
+    this.turn = turn;
+  }
+
+  // the timer ran out, ask the game's worker to close the window
+  public void fire() {
+    this.host.post(this);
+  }
+
+  // close the window if it is still the one for this turn
+  public void replay(Concentration game) {
+    if (this.host.turns == this.turn) {
+      super.replay(game);
+    }
+  }
+}
+
+// represents a game hosted by a GameRegistry, with a mailbox of input events
+// At most one worker runs a game at a time: a game is in a run queue only while
+// scheduled is set, and the worker running it clears scheduled when done
+class HostedGame implements ITurnObserver {
+  long id;
+  Concentration game;
+  GameRegistry registry;
+  ConcurrentLinkedQueue<IInputEvent> inbox;
+  AtomicBoolean scheduled;
+
+  ITurnObserver next; // the observer the game had before it was hosted
+  // turns completed, only written by the running worker
+  // volatile so that other threads can watch a game's progress
+  volatile long turns;
+  GameWorker worker; // the worker running this game right now
+
+  HostedGame(long id, Concentration game, GameRegistry registry) {
+    this.id = id;
+    this.game = game;
+    this.registry = registry;
+    this.inbox = new ConcurrentLinkedQueue<IInputEvent>();
+    this.scheduled = new AtomicBoolean(false);
+
+    this.next = game.observer;
+    this.turns = 0;
+    game.observer = this;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.id ... long
+   *  this.game ... Concentration
+   *  this.registry ... GameRegistry
+   *  this.inbox ... ConcurrentLinkedQueue<IInputEvent>
+   *  this.scheduled ... AtomicBoolean
+   *  this.next ... ITurnObserver
+   *  this.turns ... long
+   *  this.worker ... GameWorker
+   * methods:
+   *  this.post ... void
+   *  this.runOn ... void
+   *  this.onTurn ... void
+   */
+
+  // add an event to the mailbox, scheduling the game if it is not already
+  // the game joins the back of its shard's queue, behind games that were waiting first
+  // may be called from any thread
+  void post(IInputEvent e) {
+    this.inbox.add(e);
+    if (this.scheduled.compareAndSet(false, true)) {
+      this.registry.homeOf(this.id).runQueue.addLast(this);
+    }
+  }
+
+  // handle up to budget events on the given worker
+  // a game with events left goes to the back of the worker's queue
+  void runOn(GameWorker w, int budget) {
+    this.worker = w;
+
+    for (int i = 0; i < budget; i++) {
+      IInputEvent e = this.inbox.poll();
+      if (e == null) {
+        break;
+      }
+      e.replay(this.game);
+    }
+
+    this.worker = null;
+    this.scheduled.set(false);
+
+    // an event may have arrived after the last poll
+    if (!this.inbox.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+      w.runQueue.addLast(this);
+    }
+  }
+
+  // a turn was completed: close its window automatically after the registry's delay
+  public void onTurn(Concentration g) {
+    this.turns++;
+    this.worker.wheel.schedule(new TimedDismiss(this, this.turns),
+        this.registry.dismissTicks);
+    this.next.onTurn(g);
+  }
+}
+
+//---------------------- WORKER CLASS -----------------------------------------
+
+// represents one worker thread of a GameRegistry and its shard of games
+// runs games from the front of its own queue first (first come, first served),
+// then steals from the back of the other workers' queues
+class GameWorker implements Runnable {
+  GameRegistry registry;
+  int index;
+  ConcurrentLinkedDeque<HostedGame> runQueue; // games of this shard waiting to run
+  TimerWheel wheel; // only touched by this worker's thread
+  Thread thread;
+
+  long ran; // games run from this worker's own queue
+  long stolen; // games run from other workers' queues
+
+  GameWorker(GameRegistry registry, int index) {
+    this.registry = registry;
+    this.index = index;
+    this.runQueue = new ConcurrentLinkedDeque<HostedGame>();
+    this.wheel = new TimerWheel();
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.registry ... GameRegistry
+   *  this.index ... int
+   *  this.runQueue ... ConcurrentLinkedDeque<HostedGame>
+   *  this.wheel ... TimerWheel
+   *  this.thread ... Thread
+   *  this.ran ... long
+   *  this.stolen ... long
+   * methods:
+   *  this.run ... void
+   *  this.runOnce ... boolean
+   *  this.steal ... HostedGame
+   */
+
+  // run games until the registry stops
+  public void run() {
+    while (this.registry.running) {
+      this.wheel.advanceTo(this.registry.currentTick());
+
+      if (!this.runOnce()) {
+        LockSupport.parkNanos(this.registry.tickNanos / 4);
+      }
+    }
+  }
+
+  // run the game at the front of this worker's queue, or a stolen one if the queue
+  // is empty, and return if there was a game to run
+  boolean runOnce() {
+    HostedGame g = this.runQueue.pollFirst();
+    if (g != null) {
+      this.ran++;
+    }
+    else {
+      g = this.steal();
+    }
+
+    if (g == null) {
+      return false;
+    }
+    g.runOn(this, this.registry.budget);
+    return true;
+  }
+
+  // take the most recently queued game of another worker, or null if all are idle
+  HostedGame steal() {
+    ArrayList<GameWorker> all = this.registry.workers;
+    for (int i = 1; i < all.size(); i++) {
+      HostedGame g = all.get((this.index + i) % all.size()).runQueue.pollLast();
+      if (g != null) {
+        this.stolen++;
+        return g;
+      }
+    }
+    return null;
+  }
+}
+
+//---------------------- REGISTRY CLASS ---------------------------------------
+
+// represents a server hosting many games on a fixed number of worker threads
+// games are sharded across workers by id; a game's state is only ever touched by
+// the one worker running it, so games need no locks
+class GameRegistry {
+  ArrayList<GameWorker> workers;
+  ConcurrentHashMap<Long, HostedGame> games;
+  volatile boolean running;
+
+  long tickNanos; // length of one timer tick
+  long dismissTicks; // ticks before a "match / no match" window closes by itself
+  int budget; // events a game may handle before giving up its worker
+  long startNanos;
+
+  GameRegistry(int shards, long tickNanos, long dismissTicks) {
+    if (shards < 1) {
+      throw new IllegalArgumentException("Need at least one shard: " + shards);
+    }
+
+    this.workers = new ArrayList<GameWorker>(shards);
+    for (int i = 0; i < shards; i++) {
+      this.workers.add(new GameWorker(this, i));
+    }
+    this.games = new ConcurrentHashMap<Long, HostedGame>();
+    this.running = false;
+
+    this.tickNanos = tickNanos;
+    this.dismissTicks = dismissTicks;
+    this.budget = 64;
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.workers ... ArrayList<GameWorker>
+   *  this.games ... ConcurrentHashMap<Long, HostedGame>
+   *  this.running ... boolean
+   *  this.tickNanos ... long
+   *  this.dismissTicks ... long
+   *  this.budget ... int
+   *  this.startNanos ... long
+   * methods:
+   *  this.start ... void
+   *  this.stop ... void
+   *  this.host ... HostedGame
+   *  this.post ... void
+   *  this.homeOf ... GameWorker
+   *  this.currentTick ... long
+   *  this.awaitIdle ... boolean
+   */
+
+  // start every worker
+  void start() {
+    this.startNanos = System.nanoTime();
+    this.running = true;
+    for (GameWorker w : this.workers) {
+      w.thread = new Thread(w, "game-worker-" + w.index);
+      w.thread.setDaemon(true);
+      w.thread.start();
+    }
+  }
+
+  // stop every worker, leaving unhandled events in their mailboxes
+  void stop() {
+    this.running = false;
+    for (GameWorker w : this.workers) {
+      try {
+        w.thread.join();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  // host the given game under the given id
+  HostedGame host(long id, Concentration game) {
+    HostedGame hosted = new HostedGame(id, game, this);
+    if (this.games.putIfAbsent(id, hosted) != null) {
+      throw new IllegalArgumentException("Game already hosted: " + id);
+    }
+    return hosted;
+  }
+
+  // send an input event to the game with the given id
+  void post(long id, IInputEvent e) {
+    HostedGame hosted = this.games.get(id);
+    if (hosted == null) {
+      throw new IllegalArgumentException("No such game: " + id);
+    }
+    hosted.post(e);
+  }
+
+  // the worker whose shard holds the game with the given id
+  GameWorker homeOf(long id) {
+    return this.workers.get((int) Math.floorMod(id, (long) this.workers.size()));
+  }
+
+  // ticks since the registry started
+  long currentTick() {
+    return (System.nanoTime() - this.startNanos) / this.tickNanos;
+  }
+
+  // wait up to the given time for every mailbox to be empty and every game to be done
+  // returns if that happened
+  boolean awaitIdle(long millis) {
+    long end = System.nanoTime() + millis * 1000000;
+
+    while (System.nanoTime() < end) {
+      boolean idle = true;
+      for (HostedGame g : this.games.values()) {
+        idle = idle && !g.scheduled.get() && g.inbox.isEmpty();
+      }
+      if (idle) {
+        return true;
+      }
+      LockSupport.parkNanos(1000000);
+    }
+    return false;
+  }
+}
+
+//---------------------- EXAMPLES CLASS ---------------------------------------
+
+// represents a timer task that writes down the tick it fired on
+class RecordTick implements ITimerTask {
+  TimerWheel wheel;
+  ArrayList<Long> fired;
+
+  RecordTick(TimerWheel wheel, ArrayList<Long> fired) {
+    this.wheel = wheel;
+    this.fired = fired;
+  }
+
+  public void fire() {
+    this.fired.add(this.wheel.now);
+  }
+}
+
+// represents Examples and Tests of the game registry and timer wheel
+class ExamplesServer implements IGameConstants {
+  static final long MILLI = 1000000;
+
+  TimerWheel wheel;
+  ArrayList<Long> fired;
+
+  //initializes examples
+  void initData() {
+    this.wheel = new TimerWheel();
+    this.fired = new ArrayList<Long>();
+  }
+
+  // represents tests for schedule and advance on every level of the wheel
+  void testTimerWheel(Tester t) {
+    this.initData();
+
+    long[] delays = {0, 1, 5, 63, 64, 65, 100, 4095, 4096, 5000, 70000};
+    for (long d : delays) {
+      this.wheel.schedule(new RecordTick(this.wheel, this.fired), d);
+    }
+    t.checkExpect(this.wheel.pending, delays.length);
+
+    this.wheel.advanceTo(70000);
+    t.checkExpect(this.wheel.pending, 0);
+
+    ArrayList<Long> expected = new ArrayList<Long>();
+    long[] due = {1, 1, 5, 63, 64, 65, 100, 4095, 4096, 5000, 70000};
+    for (long d : due) {
+      expected.add(d);
+    }
+    t.checkExpect(this.fired, expected);
+  }
+
+  // represents tests for scheduling from a tick other than 0
+  void testTimerWheelLater(Tester t) {
+    this.initData();
+
+    this.wheel.advanceTo(4000);
+    this.wheel.schedule(new RecordTick(this.wheel, this.fired), 96);
+    this.wheel.schedule(new RecordTick(this.wheel, this.fired), 300000);
+    this.wheel.advanceTo(5000);
+    t.checkExpect(this.fired.size(), 1);
+    t.checkExpect(this.fired.get(0), 4096L);
+
+    // beyond the reach of the wheel: fires on time anyway
+    this.wheel.advanceTo(304000);
+    t.checkExpect(this.fired.size(), 2);
+    t.checkExpect(this.fired.get(1), 304000L);
+  }
+
+  // represents tests for the GameRegistry constructor, host and post
+  void testRegistryErrors(Tester t) {
+    t.checkConstructorException(new IllegalArgumentException("Need at least one shard: 0"),
+        "GameRegistry", 0, MILLI, 10L);
+
+    GameRegistry registry = new GameRegistry(2, MILLI, 10);
+    registry.host(1, new Concentration(1));
+    t.checkException(new IllegalArgumentException("Game already hosted: 1"),
+        registry, "host", 1L, new Concentration(1));
+    t.checkException(new IllegalArgumentException("No such game: 2"),
+        registry, "post", 2L, new DismissEvent());
+    t.checkExpect(registry.homeOf(1) == registry.workers.get(1), true);
+    t.checkExpect(registry.homeOf(-3) == registry.workers.get(1), true);
+  }
+
+  // represents tests that hosted games end up exactly as if played alone
+  void testRegistryMatchesReplay(Tester t) {
+    // windows never close by themselves here, so only the clicks matter
+    GameRegistry registry = new GameRegistry(4, MILLI, 1L << 40);
+    ArrayList<Recording> recs = new ArrayList<Recording>();
+
+    for (int id = 0; id < 40; id++) {
+      Recording rec = new Recording(id, 300, 0.2, 100);
+      recs.add(rec);
+      registry.host(id, rec.newGame());
+    }
+
+    registry.start();
+    for (int i = 0; i < 300; i++) {
+      for (int id = 0; id < 40; id++) {
+        registry.post(id, recs.get(id).events.get(i));
+      }
+    }
+    t.checkExpect(registry.awaitIdle(20000), true);
+    registry.stop();
+
+    LoadTestHarness harness = new LoadTestHarness(false);
+    long ran = 0;
+    for (int id = 0; id < 40; id++) {
+      Concentration alone = harness.replay(recs.get(id));
+      Concentration hosted = registry.games.get((long) id).game;
+      t.checkExpect(hosted.board.cards, alone.board.cards);
+      t.checkExpect(hosted.score, alone.score);
+      t.checkExpect(hosted.stage, alone.stage);
+    }
+    for (GameWorker w : registry.workers) {
+      ran += w.ran + w.stolen;
+    }
+    t.checkExpect(ran > 0, true);
+  }
+
+  // represents tests that the timer closes a "match / no match" window
+  void testAutoDismiss(Tester t) {
+    // 1 ms ticks, windows close after 20 ms
+    GameRegistry registry = new GameRegistry(2, MILLI, 20);
+    Concentration game = new Concentration(31);
+    HostedGame hosted = registry.host(5, game);
+    registry.start();
+
+    registry.post(5, new ClickEvent(new Posn(97, 112)));
+    registry.post(5, new ClickEvent(new Posn(192, 112)));
+
+    // turns is volatile, so it is safe to watch while the worker runs
+    long end = System.nanoTime() + 5000 * MILLI;
+    while (hosted.turns == 0 && System.nanoTime() < end) {
+      LockSupport.parkNanos(MILLI);
+    }
+    t.checkExpect(hosted.turns, 1L);
+
+    // give the timer ten times its delay to close the window, then wait for the worker
+    // to be done with it. The game is only read once stop has joined the workers
+    LockSupport.parkNanos(200 * MILLI);
+    t.checkExpect(registry.awaitIdle(5000), true);
+    registry.stop();
+    t.checkExpect(hosted.inbox.isEmpty(), true);
+    t.checkExpect(game.stage, 0);
+    t.checkExpect(game.pick2.faceUp, game.match);
+  }
+
+  // represents tests that a stale timer does not close a later turn's window
+  void testStaleDismiss(Tester t) {
+    GameRegistry registry = new GameRegistry(1, MILLI, 20);
+    Concentration game = new Concentration(31);
+    HostedGame hosted = registry.host(5, game);
+
+    // run the mailbox by hand on the (not started) worker
+    GameWorker w = registry.workers.get(0);
+    hosted.post(new ClickEvent(new Posn(97, 112)));
+    hosted.post(new ClickEvent(new Posn(192, 112)));
+    hosted.runOn(w, 64);
+    t.checkExpect(w.wheel.pending, 1);
+    TimedDismiss first = new TimedDismiss(hosted, 1);
+
+    // the player closes the window and plays another turn
+    hosted.post(new ClickEvent(new Posn(0, 0)));
+    hosted.post(new ClickEvent(new Posn(287, 112)));
+    hosted.post(new ClickEvent(new Posn(382, 112)));
+    w.runQueue.clear();
+    hosted.runOn(w, 64);
+    t.checkExpect(game.stage, 2);
+
+    // the first turn's timer is ignored, the second one's is not
+    first.replay(game);
+    t.checkExpect(game.stage, 2);
+    new TimedDismiss(hosted, 2).replay(game);
+    t.checkExpect(game.stage, 0);
+  }
+
+  // represents tests that a game with a long backlog keeps its turn on a busy shard
+  // while other games keep posting
+  void testBacklogMakesProgress(Tester t) {
+    GameRegistry registry = new GameRegistry(1, MILLI, 1L << 40);
+    Recording rec = new Recording(31, 640, 0.2, 0);
+    HostedGame backlog = registry.host(0, rec.newGame());
+    for (int id = 1; id <= 10; id++) {
+      registry.host(id, new Concentration(id));
+    }
+
+    // drive the (not started) worker by hand: a new event for another game, then one run
+    GameWorker w = registry.workers.get(0);
+    for (IInputEvent e : rec.events) {
+      backlog.post(e);
+    }
+    for (int step = 0; step < 100; step++) {
+      registry.post(1 + step % 10, new ClickEvent(new Posn(0, 0)));
+      t.checkExpect(w.runOnce(), true);
+    }
+
+    // 640 events at 64 per run: done within the first 30 runs, when served in order
+    t.checkExpect(backlog.inbox.isEmpty(), true);
+    t.checkExpect(backlog.game.board.cards,
+        new LoadTestHarness(false).replay(rec).board.cards);
+  }
+
+  // hosts many games on one worker per processor and prints the rate handled
+  void testRegistryLoad(Tester t) {
+    int shards = Runtime.getRuntime().availableProcessors();
+    GameRegistry registry = new GameRegistry(shards, MILLI, 1L << 40);
+    Recording rec = new Recording(31, 200, 0.2, 0);
+
+    for (int id = 0; id < 2000; id++) {
+      registry.host(id, rec.newGame());
+    }
+
+    registry.start();
+    long start = System.nanoTime();
+    for (int i = 0; i < rec.events.size(); i++) {
+      for (int id = 0; id < 2000; id++) {
+        registry.post(id, rec.events.get(i));
+      }
+    }
+    t.checkExpect(registry.awaitIdle(60000), true);
+    long elapsed = System.nanoTime() - start;
+    registry.stop();
+
+    long stolen = 0;
+    for (GameWorker w : registry.workers) {
+      stolen += w.stolen;
+    }
+    System.out.println(String.format("%d shards: %.0f events/s, %d games stolen",
+        shards, 2000.0 * rec.events.size() * 1e9 / elapsed, stolen));
+  }
+}
@@ -0,0 +1,339 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javalib.impworld.WorldScene;
+import javalib.worldimages.*;
+import tester.Tester;
+
+//---------------------- LAUNCH CLASSES ---------------------------------------
+
+// represents a short-lived headless job: deal a board and click every slot
+// with the argument "draw", also draws the board once
+class HeadlessLaunch implements IGameConstants {
+  public static void main(String[] args) {
+    Deck deck = new Deck(34);
+    deck.shuffle();
+    Board board = new Board(deck);
+
+    int found = 0;
+    for (int slot = 0; slot < ROWS * COLS; slot++) {
+      if (board.getClicked(new Posn(board.slotX(slot), board.slotY(slot))).rank != 0) {
+        found++;
+      }
+    }
+
+    if (args.length > 0 && args[0].equals("draw")) {
+      board.draw(new WorldScene(GAME_WIDTH, GAME_HEIGHT));
+    }
+
+    System.out.println("found " + found);
+  }
+}
+
+// represents launching the game up to its first scene, without opening a window
+class GuiLaunch {
+  public static void main(String[] args) {
+    Concentration game = new Concentration(34);
+    game.makeScene();
+
+    // show a "match / no match" window, as the first turn would
+    game.onMouseReleased(new Posn(97, 112));
+    game.onMouseReleased(new Posn(192, 112));
+    game.makeScene();
+
+    System.out.println("stage " + game.stage);
+  }
+}
+
+//---------------------- BENCHMARK CLASS --------------------------------------
+
+// represents timing fresh JVM launches of a main class, with and without an
+// application class data sharing (AppCDS) archive of the classes it loads.
+// Class data sharing only archives classes from jars, so the archive step first jars
+// every class directory on the classpath, then runs the main class once with
+//   java -XX:ArchiveClassesAtExit=<main>.jsa -cp <jars> <main>
+// and every later launch, with the same classpath, adds -XX:SharedArchiveFile=<main>.jsa
+// To build a lasting archive for batch jobs, run the main method below
+class StartupBenchmark {
+  File dir; // where the jars and archives go
+  boolean temporary; // delete the jars and archives when this JVM exits
+  String java; // the java command of the running JVM
+  String classpath; // the running classpath, with directories turned into jars
+
+  StartupBenchmark(File dir, boolean temporary) throws IOException {
+    this.dir = dir;
+    this.temporary = temporary;
+    this.java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    this.classpath = this.jarClasspath(System.getProperty("java.class.path"));
+  }
+
+  // build the jars and the archive of the given main class (and its arguments, if any)
+  // in the given directory, and print the java command that launches it with them
+  // usage: java -cp <classpath> StartupBenchmark <out dir> <main class> [args...]
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException(
+          "Usage: StartupBenchmark <out dir> <main class> [args...]");
+    }
+
+    String main = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+    System.out.println(build(new File(args[0]), main));
+  }
+
+  // build the jars and lasting archive of the given main class in the given directory
+  // and return the java command that launches the main class with them
+  static String build(File dir, String main) throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create " + dir);
+    }
+
+    StartupBenchmark bench = new StartupBenchmark(dir, false);
+    return bench.command(main, bench.buildArchive(main));
+  }
+
+  /* TEMPLATE:
+   * fields:
+   *  this.dir ... File
+   *  this.temporary ... boolean
+   *  this.java ... String
+   *  this.classpath ... String
+   * methods:
+   *  this.jarClasspath ... String
+   *  this.jarDirectory ... void
+   *  this.buildArchive ... File
+   *  this.command ... String
+   *  this.run ... String
+   *  this.launch ... long
+   *  this.median ... long
+   */
+
+  // return the given classpath with every directory replaced by a jar of its classes
+  // (class data sharing only archives classes that come from jars)
+  // every entry is an absolute path, so the classpath works from any directory
+  String jarClasspath(String cp) throws IOException {
+    ArrayList<String> entries = new ArrayList<String>();
+    String[] parts = cp.split(File.pathSeparator);
+
+    for (int i = 0; i < parts.length; i++) {
+      File entry = new File(parts[i]);
+      if (entry.isDirectory()) {
+        File jar = new File(this.dir, "classes-" + i + ".jar");
+        if (this.temporary) {
+          jar.deleteOnExit();
+        }
+        this.jarDirectory(entry, jar);
+        entries.add(jar.getAbsolutePath());
+      }
+      else {
+        entries.add(entry.getAbsolutePath());
+      }
+    }
+
+    return String.join(File.pathSeparator, entries);
+  }
+
+  // write every class file directly in the given directory to the given jar
+  void jarDirectory(File classes, File jar) throws IOException {
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+      File[] files = classes.listFiles();
+      Arrays.sort(files);
+      for (File f : files) {
+        if (f.getName().endsWith(".class")) {
+          out.putNextEntry(new JarEntry(f.getName()));
+          out.write(Files.readAllBytes(f.toPath()));
+          out.closeEntry();
+        }
+      }
+    }
+  }
+
+  // run the main class once and archive every class it loaded
+  File buildArchive(String main) throws IOException {
+    File archive = new File(this.dir, main.replace(' ', '-') + ".jsa").getAbsoluteFile();
+    if (this.temporary) {
+      archive.deleteOnExit();
+    }
+    this.run(main, "-XX:ArchiveClassesAtExit=" + archive.getPath());
+    return archive;
+  }
+
+  // the java command that launches the main class with the given archive
+  String command(String main, File archive) {
+    return this.java + " -XX:SharedArchiveFile=" + archive.getPath() + " -cp "
+        + this.classpath + " " + main;
+  }
+
+  // launch the main class (followed by its arguments, if any) with the given JVM
+  // options and return what it printed
+  String run(String main, String... options) throws IOException {
+    ArrayList<String> cmd = new ArrayList<String>();
+    cmd.add(this.java);
+    cmd.add("-Djava.awt.headless=" + System.getProperty("java.awt.headless", "false"));
+    cmd.addAll(Arrays.asList(options));
+    cmd.add("-cp");
+    cmd.add(this.classpath);
+    cmd.addAll(Arrays.asList(main.split(" ")));
+
+    Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (InputStream in = p.getInputStream()) {
+      in.transferTo(output);
+    }
+
+    try {
+      if (p.waitFor() != 0) {
+        throw new IOException(main + " failed: " + output);
+      }
+    }
+    catch (InterruptedException e) {
+      throw new IOException("Interrupted while running " + main, e);
+    }
+    return output.toString();
+  }
+
+  // time one launch of the main class, using the archive unless it is null
+  long launch(String main, File archive) throws IOException {
+    long start = System.nanoTime();
+    if (archive == null) {
+      this.run(main);
+    }
+    else {
+      this.run(main, "-XX:SharedArchiveFile=" + archive.getPath());
+    }
+    return System.nanoTime() - start;
+  }
+
+  // median time of the given number of launches
+  long median(String main, File archive, int runs) throws IOException {
+    long[] times = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      times[i] = this.launch(main, archive);
+    }
+    Arrays.sort(times);
+    return times[runs / 2];
+  }
+}
+
+//---------------------- EXAMPLES CLASS ---------------------------------------
+
+// represents Examples and Tests of startup
+class ExamplesStartup {
+  StartupBenchmark bench;
+
+  //initializes examples, returning if that worked
+  boolean initData(Tester t) {
+    try {
+      File dir = Files.createTempDirectory("startup").toFile();
+      dir.deleteOnExit();
+      this.bench = new StartupBenchmark(dir, true);
+      return true;
+    }
+    catch (IOException e) {
+      return t.checkExpect(e.getMessage(), "no error while setting up");
+    }
+  }
+
+  // represents tests that headless work builds no game images and does not load AWT,
+  // and that drawing cards builds only the face down image: no text, so no fonts
+  void testLazyImages(Tester t) {
+    if (!this.initData(t)) {
+      return;
+    }
+
+    try {
+      String plain = this.bench.run("HeadlessLaunch", "-Xlog:class+init=info");
+      t.checkExpect(plain.contains("found 52"), true);
+      t.checkExpect(plain.contains("Initializing 'IGameConstants"), false);
+      t.checkExpect(plain.contains("Initializing 'java/awt/Font'"), false);
+      // cards keep their color as a boolean, so headless work does not start AWT at all
+      t.checkExpect(plain.contains("Initializing 'java/awt/Color'"), false);
+      t.checkExpect(plain.contains("Initializing 'java/awt/Toolkit'"), false);
+
+      String drawn = this.bench.run("HeadlessLaunch draw", "-Xlog:class+init=info");
+      t.checkExpect(drawn.contains("Initializing 'IGameConstants$FacedownCard'"), true);
+      t.checkExpect(drawn.contains("Initializing 'IGameConstants$MatchWindow'"), false);
+      t.checkExpect(drawn.contains("Initializing 'java/awt/Font'"), false);
+
+      String gui = this.bench.run("GuiLaunch", "-Xlog:class+init=info");
+      t.checkExpect(gui.contains("stage 2"), true);
+      t.checkExpect(gui.contains("Initializing 'java/awt/Font'"), true);
+    }
+    catch (IOException e) {
+      t.checkExpect(e.getMessage(), "no error while launching");
+    }
+  }
+
+  // represents tests for build: the archive stays, and the printed command uses it
+  void testBuild(Tester t) {
+    File dir = null;
+    try {
+      dir = new File(Files.createTempDirectory("startup").toFile(), "cds");
+      String command = StartupBenchmark.build(dir, "HeadlessLaunch");
+      File archive = new File(dir, "HeadlessLaunch.jsa");
+      t.checkExpect(archive.length() > 0, true);
+      t.checkExpect(command.contains("-XX:SharedArchiveFile=" + archive.getAbsolutePath()), true);
+
+      // launch with the printed command, logging where each class came from
+      ArrayList<String> cmd = new ArrayList<String>(Arrays.asList(command.split(" ")));
+      cmd.add(1, "-Xlog:class+load=info");
+      cmd.add(1, "-Djava.awt.headless=true");
+      Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      try (InputStream in = p.getInputStream()) {
+        in.transferTo(output);
+      }
+      t.checkExpect(p.waitFor(), 0);
+      t.checkExpect(output.toString().contains("found 52"), true);
+      t.checkExpect(output.toString().contains("HeadlessLaunch source: shared objects file"),
+          true);
+    }
+    catch (IOException | InterruptedException e) {
+      t.checkExpect(e.getMessage(), "no error while building");
+    }
+    finally {
+      if (dir != null) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+          for (File f : files) {
+            f.delete();
+          }
+        }
+        dir.delete();
+        dir.getParentFile().delete();
+      }
+    }
+  }
+
+  // builds a class data sharing archive for each launch and prints the median
+  // launch time with and without it
+  void testStartupBenchmark(Tester t) {
+    if (!this.initData(t)) {
+      return;
+    }
+
+    try {
+      String[] mains = {"HeadlessLaunch", "GuiLaunch"};
+      for (String main : mains) {
+        File archive = this.bench.buildArchive(main);
+        t.checkExpect(archive.length() > 0, true);
+
+        long plain = this.bench.median(main, null, 5);
+        long shared = this.bench.median(main, archive, 5);
+        System.out.println(String.format("%s: %.1f ms, with AppCDS %.1f ms",
+            main, plain / 1e6, shared / 1e6));
+      }
+    }
+    catch (IOException e) {
+      t.checkExpect(e.getMessage(), "no error while launching");
+    }
+  }
+}